@@ -1,11 +1,15 @@
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 import helpers.ImageImplHelper;
 import imagecontroller.GraphicalController;
 import imagecontroller.ImageController;
 import imagecontroller.ImageControllerInterface;
 import imagemodel.ImageStore;
+import imagemodel.ParallelExecutor;
+import imagemodel.PixelLoops;
 import imageview.GraphicalView;
 import imageview.TerminalView;
 import imageview.View;
@@ -32,6 +36,22 @@ public class MainApp {
 
     boolean textModeFlag = false;
 
+    // -threads N may be given along with any of the modes below
+    List<String> modeArgs = new ArrayList<>();
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("-threads") && i + 1 < args.length) {
+        try {
+          ParallelExecutor.setParallelism(Integer.parseInt(args[++i]));
+        } catch (IllegalArgumentException e) {
+          System.out.println("Invalid number of threads: " + args[i]);
+          return;
+        }
+      } else {
+        modeArgs.add(args[i]);
+      }
+    }
+    args = modeArgs.toArray(new String[0]);
+
     // -file filepath
     // -text
     if (args.length == 2 && args[0].equals("-file")) {
@@ -50,6 +70,7 @@ public class MainApp {
 
     if (textModeFlag) {
       System.out.println("Image Manipulation Program");
+      System.out.println("Pixel loops: " + PixelLoops.describe());
       View view = new TerminalView(
               in,
               System.out
@@ -19,4 +19,7 @@ public class Constants {
 
   final public static String NUM_OF_SEEDS = "1000";
 
+  // Destination name that tells a command not to produce that image
+  final public static String SKIP_IMAGE = "_";
+
 }
@@ -0,0 +1,112 @@
+package helpers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import imagemodel.ChannelLut;
+
+/**
+ * This class reads tone curves from text files into lookup tables. A curve file has one point per
+ * line, an input value followed by the output value it maps to, separated by spaces or commas.
+ * The curve is linear between the points. A point can be given to a single channel by starting
+ * its line with red, green or blue. Channels without points of their own use the points without
+ * a channel, and stay unchanged if there are none. Blank lines and everything after a # are
+ * ignored.
+ */
+public class CurveReader {
+
+  private static final String[] CHANNELS = {"red", "green", "blue"};
+
+  /**
+   * Reads the curve in the given file.
+   *
+   * @param path     the path of the curve file
+   * @param maxValue the largest value of a sample of the image the curve is applied to
+   * @return the lookup table of the curve
+   * @throws IllegalArgumentException if the file can not be read or does not hold a valid curve
+   */
+  public static ChannelLut readCurve(String path, int maxValue) throws IllegalArgumentException {
+    if (path == null) {
+      throw new IllegalArgumentException("The curve file path is null");
+    }
+    File file = new File(path);
+    if (!file.isFile()) {
+      throw new IllegalArgumentException("The curve file does not exist : " + path);
+    }
+    try {
+      return parseCurve(new String(Files.readAllBytes(file.toPath())), maxValue);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Unable to read the curve file: " + path);
+    }
+  }
+
+  /**
+   * Parses the text of a curve file.
+   *
+   * @param content  the text of the file
+   * @param maxValue the largest value of a sample of the image the curve is applied to
+   * @return the lookup table of the curve
+   * @throws IllegalArgumentException if the text does not hold a valid curve
+   */
+  public static ChannelLut parseCurve(String content, int maxValue)
+          throws IllegalArgumentException {
+    // Inputs and outputs of the points of each channel, and of the points without a channel
+    List<List<Integer>> inputs = new ArrayList<>();
+    List<List<Integer>> outputs = new ArrayList<>();
+    for (int c = 0; c <= CHANNELS.length; c++) {
+      inputs.add(new ArrayList<>());
+      outputs.add(new ArrayList<>());
+    }
+    boolean empty = true;
+    for (String line : content.split("\\R")) {
+      int comment = line.indexOf('#');
+      if (comment >= 0) {
+        line = line.substring(0, comment);
+      }
+      line = line.trim();
+      if (line.isEmpty()) {
+        continue;
+      }
+      List<String> tokens = new ArrayList<>(List.of(line.split("[\\s,]+")));
+      int channel = CHANNELS.length;
+      for (int c = 0; c < CHANNELS.length; c++) {
+        if (tokens.get(0).equalsIgnoreCase(CHANNELS[c])) {
+          channel = c;
+          tokens.remove(0);
+        }
+      }
+      if (tokens.size() != 2) {
+        throw new IllegalArgumentException("A curve point needs an input and an output: " + line);
+      }
+      try {
+        inputs.get(channel).add(Integer.parseInt(tokens.get(0)));
+        outputs.get(channel).add(Integer.parseInt(tokens.get(1)));
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Invalid curve point: " + line);
+      }
+      empty = false;
+    }
+    if (empty) {
+      throw new IllegalArgumentException("The curve file has no points");
+    }
+
+    int[][] tables = new int[CHANNELS.length][maxValue + 1];
+    for (int c = 0; c < CHANNELS.length; c++) {
+      int source = inputs.get(c).isEmpty() ? CHANNELS.length : c;
+      if (inputs.get(source).isEmpty()) {
+        for (int v = 0; v <= maxValue; v++) {
+          tables[c][v] = v;
+        }
+        continue;
+      }
+      ChannelLut curve = ChannelLut.curve(inputs.get(source), outputs.get(source), maxValue);
+      for (int v = 0; v <= maxValue; v++) {
+        tables[c][v] = curve.lookup(c, v);
+      }
+    }
+    return new ChannelLut(tables[0], tables[1], tables[2]);
+  }
+}
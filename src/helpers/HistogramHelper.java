@@ -38,18 +38,20 @@ public class HistogramHelper {
    * @return a list of 256 elements, each element representing the number of pixels in the image
    */
   public static List<Double> getHistogram(BufferedImage image, String channel) {
-    List<Double> histogram = new ArrayList<>();
-    for (int i = 0; i < 256; i++) {
-      histogram.add(0.0);
-    }
-
-    for (int i = 0; i < image.getWidth(); i++) {
-      for (int j = 0; j < image.getHeight(); j++) {
-        int pixelChannelVal = getChannelVal(image.getRGB(i, j), channel);
-        histogram.set(pixelChannelVal, histogram.get(pixelChannelVal) + 1);
+    // Count in a primitive array, reading the image one row at a time
+    long[] counts = new long[256];
+    int[] row = new int[image.getWidth()];
+    for (int j = 0; j < image.getHeight(); j++) {
+      image.getRGB(0, j, image.getWidth(), 1, row, 0, image.getWidth());
+      for (int rgb : row) {
+        counts[getChannelVal(rgb, channel)]++;
       }
     }
 
+    List<Double> histogram = new ArrayList<>();
+    for (int i = 0; i < 256; i++) {
+      histogram.add((double) counts[i]);
+    }
     return histogram;
   }
 
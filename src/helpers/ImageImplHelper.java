@@ -3,7 +3,6 @@ package helpers;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -15,8 +14,7 @@ import helpers.loaders.PNGLoader;
 import helpers.loaders.PPMLoader;
 import imagemodel.ImageImpl;
 import imagemodel.ImageInterface;
-import imagemodel.PixelInterface;
-import imagemodel.RGBPixel;
+import imagemodel.StorageType;
 
 /**
  * This class contains methods to load a PPM image from file and return an ImageInterface object.
@@ -91,6 +89,21 @@ public class ImageImplHelper {
    * @return an image object
    */
   public ImageInterface loadImage(String filePath) {
+    return loadImage(filePath, StorageType.AUTO);
+  }
+
+  /**
+   * Load an image from the given file into the given kind of storage.
+   *
+   * @param filePath the path to the file to load the image from
+   * @param storage  where the pixels of the loaded image are kept
+   * @return an image object
+   */
+  public ImageInterface loadImage(String filePath, StorageType storage) {
+    if (storage == null) {
+      throw new IllegalArgumentException("The storage type is null");
+    }
+
     // Validate that the file path is not null
     if (filePath == null) {
       throw new IllegalArgumentException("The file path is null");
@@ -119,7 +132,7 @@ public class ImageImplHelper {
       loader = loaders.get(fileType);
       try {
         FileInputStream stream = new FileInputStream(filePath);
-        image = loader.loadImage(stream);
+        image = loader.loadImage(stream, storage);
       } catch (IOException e) {
         throw new IllegalArgumentException("Unable to read from File");
       }
@@ -158,39 +171,7 @@ public class ImageImplHelper {
       throw new IllegalArgumentException("3 images must be of the same size");
     }
 
-    if (!rgbSplit.get(0).getSize().equals(rgbSplit.get(1).getSize())
-            || !rgbSplit.get(0).getSize().equals(rgbSplit.get(2).getSize())) {
-      throw new IllegalArgumentException("3 images must be of the same size");
-    }
-
-    List<Integer> size = rgbSplit.get(0).getSize();
-    int n = size.get(0);
-    int m = size.get(1);
-
-    List<List<PixelInterface>> combineImageArray = new ArrayList<>();
-
-    for (int i = 0; i < n; i++) {
-      List<PixelInterface> row = new ArrayList<>();
-      for (int j = 0; j < m; j++) {
-        PixelInterface redP = rgbSplit.get(0).getImageArray().get(i).get(j);
-        PixelInterface greenP = rgbSplit.get(1).getImageArray().get(i).get(j);
-        PixelInterface blueP = rgbSplit.get(2).getImageArray().get(i).get(j);
-        int r = redP.getRed();
-        int g = greenP.getGreen();
-        int b = blueP.getBlue();
-        checkGreyscale(r, redP.getGreen(), redP.getBlue());
-        checkGreyscale(g, greenP.getRed(), greenP.getBlue());
-        checkGreyscale(b, blueP.getGreen(), blueP.getRed());
-        row.add(new RGBPixel(r, g, b));
-      }
-      combineImageArray.add(row);
-    }
-    return new ImageImpl(combineImageArray);
-  }
-
-  private void checkGreyscale(int val, int valX, int valY) throws IllegalArgumentException {
-    if (val != valX || val != valY) {
-      throw new IllegalArgumentException("Image provided was not greyscale");
-    }
+    // The channels are copied plane by plane into the combined image
+    return new ImageImpl(rgbSplit.get(0), rgbSplit.get(1), rgbSplit.get(2));
   }
 }
@@ -1,15 +1,17 @@
 package helpers;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Scanner;
+import java.io.IOException;
+import java.io.InputStream;
 
 import imagemodel.ImageImpl;
 import imagemodel.ImageInterface;
-import imagemodel.PixelInterface;
-import imagemodel.RGBPixel;
+import imagemodel.RasterInterface;
+import imagemodel.ShortRaster;
+import imagemodel.StorageType;
 
 
 /**
@@ -24,23 +26,14 @@ public class ImageUtil {
    * @param filename the path of the file.
    */
   public static ImageInterface readPPM(String filename) {
-    Scanner sc;
-
-    try {
-      sc = new Scanner(new FileInputStream(filename));
+    try (InputStream in = new FileInputStream(filename)) {
+      return readPPM(in, StorageType.AUTO);
     } catch (FileNotFoundException e) {
       System.out.println("File " + filename + " not found!");
       return null;
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Unable to read from file " + filename);
     }
-    StringBuilder builder = new StringBuilder();
-    //read the file line by line, and populate a string. This will throw away any comment lines
-    while (sc.hasNextLine()) {
-      String s = sc.nextLine();
-      if (s.charAt(0) != '#') {
-        builder.append(s).append(System.lineSeparator());
-      }
-    }
-    return readString(builder.toString());
   }
 
   /**
@@ -49,51 +42,117 @@ public class ImageUtil {
    * @param fileBytes the byte array of the file.
    */
   public static ImageInterface readPPM(byte[] fileBytes) {
-    Scanner sc;
+    return readPPM(fileBytes, StorageType.AUTO);
+  }
 
+  /**
+   * Read an image file in the PPM format into the given kind of storage.
+   *
+   * @param fileBytes the byte array of the file.
+   * @param storage   where the pixels of the image are kept.
+   */
+  public static ImageInterface readPPM(byte[] fileBytes, StorageType storage) {
     try {
-      sc = new Scanner(new String(fileBytes));
-    } catch (Exception e) {
-      System.out.println("File not found!");
-      return null;
-    }
-
-    StringBuilder builder = new StringBuilder();
-    //read the file line by line, and populate a string. This will throw away any comment lines
-    while (sc.hasNextLine()) {
-      String s = sc.nextLine();
-      if (s.charAt(0) != '#') {
-        builder.append(s).append(System.lineSeparator());
-      }
+      return readPPM(new ByteArrayInputStream(fileBytes), storage);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Unable to read the image bytes");
     }
-    return readString(builder.toString());
   }
 
-  private static ImageInterface readString(String fileContent) {
-    Scanner sc = new Scanner(fileContent);
-    String token;
-
-    token = sc.next();
+  /**
+   * Read an image in the PPM format from a stream into the given kind of storage. The samples are
+   * parsed as they are read and written to the raster one row at a time, so besides the raster
+   * only a single row of the image is ever held in memory.
+   *
+   * @param stream  the stream of the file, which is not closed.
+   * @param storage where the pixels of the image are kept.
+   * @throws IOException              if the stream can not be read
+   * @throws IllegalArgumentException if the stream is not a valid plain PPM image
+   */
+  public static ImageInterface readPPM(InputStream stream, StorageType storage)
+          throws IOException, IllegalArgumentException {
+    InputStream in = new BufferedInputStream(stream);
+    String token = nextToken(in);
     if (!token.equals("P3")) {
       System.out.println("Invalid PPM file: plain RAW file should begin with P3");
     }
-    int width = sc.nextInt();
+    int width = nextInt(in);
     //System.out.println("Width of image: "+width);
-    int height = sc.nextInt();
+    int height = nextInt(in);
     //System.out.println("Height of image: "+height);
-    int maxColorValue = sc.nextInt();
+    int maxColorValue = nextInt(in);
     //System.out.println("Maximum value of a color in this file (usually 255): "+maxColorValue);
-    List<PixelInterface> rgbArray = new ArrayList<>();
+    if (maxColorValue < 1 || maxColorValue > 65535) {
+      throw new IllegalArgumentException("Invalid maximum color value: " + maxColorValue);
+    }
+    // Samples that do not fit into 8 bits are kept in 16 bit planes
+    RasterInterface raster = maxColorValue > 255
+            ? new ShortRaster(width, height, maxColorValue)
+            : storage.createRaster(width, height);
+    int[] row = new int[3 * width];
     for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        int r = sc.nextInt();
-        int g = sc.nextInt();
-        int b = sc.nextInt();
-        PixelInterface rgb = new RGBPixel(r, g, b);
-        rgbArray.add(rgb);
+      for (int j = 0; j < 3 * width; j++) {
+        row[j] = nextInt(in);
+      }
+      raster.writeSamples(i, row);
+    }
+    return new ImageImpl(raster, maxColorValue);
+  }
+
+  // Reads the next whitespace separated token, skipping comments from # to the end of the line
+  private static String nextToken(InputStream in) throws IOException {
+    int c = skipToToken(in);
+    StringBuilder builder = new StringBuilder();
+    while (c != -1 && !Character.isWhitespace(c) && c != '#') {
+      builder.append((char) c);
+      c = in.read();
+    }
+    skipComment(in, c);
+    return builder.toString();
+  }
+
+  // Reads the next token as a non negative number without building a string for it
+  private static int nextInt(InputStream in) throws IOException {
+    int c = skipToToken(in);
+    if (c < '0' || c > '9') {
+      throw new IllegalArgumentException("Invalid PPM file: expected a number");
+    }
+    long value = 0;
+    while (c >= '0' && c <= '9') {
+      value = 10 * value + (c - '0');
+      if (value > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("Invalid PPM file: number too large");
       }
+      c = in.read();
+    }
+    if (c != -1 && !Character.isWhitespace(c) && c != '#') {
+      throw new IllegalArgumentException("Invalid PPM file: expected a number");
+    }
+    skipComment(in, c);
+    return (int) value;
+  }
+
+  // Returns the first character of the next token
+  private static int skipToToken(InputStream in) throws IOException {
+    int c = in.read();
+    while (c != -1 && (Character.isWhitespace(c) || c == '#')) {
+      skipComment(in, c);
+      c = in.read();
+    }
+    if (c == -1) {
+      throw new IllegalArgumentException("Invalid PPM file: unexpected end of file");
+    }
+    return c;
+  }
+
+  // Skips the rest of the line if c starts a comment
+  private static void skipComment(InputStream in, int c) throws IOException {
+    if (c != '#') {
+      return;
+    }
+    while (c != -1 && c != '\n' && c != '\r') {
+      c = in.read();
     }
-    return new ImageImpl(rgbArray, width, height, maxColorValue);
   }
 
   /**
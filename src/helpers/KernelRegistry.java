@@ -0,0 +1,126 @@
+package helpers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import imagemodel.Kernel;
+
+/**
+ * This class loads kernels from text files and keeps them by file path. A kernel is parsed and
+ * analyzed only the first time its file is used, and again only after the file changes, so
+ * scripts that apply the same kernel file many times read it once. Cached kernels also keep
+ * whatever they prepared for filtering, such as the spectrum of a large kernel.
+ * A kernel file has one row of weights per line, separated by spaces or commas. A weight is a
+ * decimal number or a fraction such as 1/16. Blank lines and everything after a # are ignored.
+ */
+public class KernelRegistry {
+
+  private final Map<String, Entry> kernels = new HashMap<>();
+
+  // A kernel along with the state of the file it was read from
+  private static class Entry {
+    private final long lastModified;
+    private final long length;
+    private final Kernel kernel;
+
+    private Entry(long lastModified, long length, Kernel kernel) {
+      this.lastModified = lastModified;
+      this.length = length;
+      this.kernel = kernel;
+    }
+  }
+
+  /**
+   * Return the kernel in the given file, reading it only if it has not been read before or has
+   * changed since.
+   *
+   * @param path the path of the kernel file
+   * @return the kernel in the file
+   * @throws IllegalArgumentException if the file can not be read or does not hold a valid kernel
+   */
+  public synchronized Kernel getKernel(String path) throws IllegalArgumentException {
+    if (path == null) {
+      throw new IllegalArgumentException("The kernel file path is null");
+    }
+    File file = new File(path);
+    if (!file.isFile()) {
+      throw new IllegalArgumentException("The kernel file does not exist : " + path);
+    }
+    String key = file.getAbsolutePath();
+    long lastModified = file.lastModified();
+    long length = file.length();
+    Entry entry = this.kernels.get(key);
+    if (entry != null && entry.lastModified == lastModified && entry.length == length) {
+      return entry.kernel;
+    }
+
+    String content;
+    try {
+      content = new String(Files.readAllBytes(file.toPath()));
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Unable to read the kernel file: " + path);
+    }
+    Kernel kernel = parseKernel(content);
+    this.kernels.put(key, new Entry(lastModified, length, kernel));
+    return kernel;
+  }
+
+  /**
+   * Return the number of kernels held by the registry.
+   *
+   * @return the number of cached kernels.
+   */
+  public synchronized int size() {
+    return this.kernels.size();
+  }
+
+  /**
+   * Parses the text of a kernel file.
+   *
+   * @param content the text of the file
+   * @return the kernel
+   * @throws IllegalArgumentException if the text does not hold a valid kernel
+   */
+  public static Kernel parseKernel(String content) throws IllegalArgumentException {
+    List<List<Double>> rows = new ArrayList<>();
+    for (String line : content.split("\\R")) {
+      int comment = line.indexOf('#');
+      if (comment >= 0) {
+        line = line.substring(0, comment);
+      }
+      line = line.trim();
+      if (line.isEmpty()) {
+        continue;
+      }
+      List<Double> row = new ArrayList<>();
+      for (String token : line.split("[\\s,]+")) {
+        row.add(parseWeight(token));
+      }
+      rows.add(row);
+    }
+    if (rows.isEmpty()) {
+      throw new IllegalArgumentException("The kernel file has no weights");
+    }
+    return new Kernel(rows);
+  }
+
+  private static double parseWeight(String token) throws IllegalArgumentException {
+    try {
+      int slash = token.indexOf('/');
+      double weight = slash < 0 ? Double.parseDouble(token)
+              : Double.parseDouble(token.substring(0, slash))
+              / Double.parseDouble(token.substring(slash + 1));
+      if (Double.isNaN(weight) || Double.isInfinite(weight)) {
+        throw new NumberFormatException();
+      }
+      return weight;
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid kernel weight: " + token);
+    }
+  }
+}
@@ -6,6 +6,12 @@ package helpers.loaders;
  */
 public class BMPLoader extends GeneralLoader {
 
+  @Override
+  protected boolean readsRegions() {
+    // The rows of a BMP file are stored at fixed offsets, which the reader seeks to
+    return true;
+  }
+
   @Override
   public String getSupportedExtension() {
     return "bmp";
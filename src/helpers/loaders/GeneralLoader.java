@@ -1,18 +1,21 @@
 package helpers.loaders;
 
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Iterator;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 
 import imagemodel.ImageImpl;
 import imagemodel.ImageInterface;
-import imagemodel.PixelInterface;
-import imagemodel.RGBPixel;
+import imagemodel.RasterInterface;
+import imagemodel.StorageType;
 
 /**
  * This class implements the ImageLoader interface. It provides the basic functionality to load an
@@ -24,6 +27,9 @@ import imagemodel.RGBPixel;
  */
 public abstract class GeneralLoader implements ImageLoader {
 
+  // Number of pixels decoded at a time by readers that can seek to a region
+  private static final int STRIP_PIXELS = 1 << 24;
+
   // Get the supported ImageReader and Register the ImageReader with the ImageIO class
   static {
     ImageIO.scanForPlugins();
@@ -31,6 +37,12 @@ public abstract class GeneralLoader implements ImageLoader {
 
   @Override
   public ImageInterface loadImage(FileInputStream fileInputStream) throws IOException {
+    return loadImage(fileInputStream, StorageType.AUTO);
+  }
+
+  @Override
+  public ImageInterface loadImage(FileInputStream fileInputStream, StorageType storage)
+          throws IOException {
 
     // Check if fileInputStream is null
     if (fileInputStream == null) {
@@ -42,33 +54,56 @@ public abstract class GeneralLoader implements ImageLoader {
       throw new IllegalArgumentException("The file input stream is empty");
     }
 
-    BufferedImage image = ImageIO.read(fileInputStream);
+    ImageInputStream input = ImageIO.createImageInputStream(fileInputStream);
+    Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
 
-    // Check if the image is null - ImageIO.read() returns null if the file is not a valid image
-    // It fails silently. Does not throw an exception.
-    if (image == null) {
+    // Check if there is a reader for the stream - ImageIO does not throw for an unknown format
+    if (readers == null || !readers.hasNext()) {
       throw new IllegalArgumentException("Invalid image bytes");
     }
 
-    // Construct a List<List<PixelInterface>> from the BufferedImage
-    List<List<PixelInterface>> pixelList = new ArrayList<>();
-    for (int i = 0; i < image.getHeight(); i++) {
-      List<PixelInterface> row = new ArrayList<>();
-      for (int j = 0; j < image.getWidth(); j++) {
-        int rgb = image.getRGB(j, i);
-        int red = (rgb >> 16) & 0xFF;
-        int green = (rgb >> 8) & 0xFF;
-        int blue = (rgb) & 0xFF;
-        PixelInterface pixel = new RGBPixel(red, green, blue);
-        row.add(pixel);
+    ImageReader reader = readers.next();
+    try {
+      reader.setInput(input, false, true);
+      int width = reader.getWidth(0);
+      int height = reader.getHeight(0);
+      RasterInterface raster = storage.createRaster(width, height);
+
+      // Formats whose rows can be found without decoding the ones above them are read in strips,
+      // so only one strip of the image is held as a BufferedImage. Sequential formats such as PNG
+      // and JPEG decode every row above a region for each read, so they are decoded once, whole.
+      int stripRows = height;
+      if (readsRegions() || reader.isImageTiled(0)) {
+        stripRows = Math.max(1, Math.min(height, STRIP_PIXELS / Math.max(1, width)));
+      }
+      ImageReadParam param = reader.getDefaultReadParam();
+      int[] row = new int[width];
+      for (int y = 0; y < height; y += stripRows) {
+        int rows = Math.min(stripRows, height - y);
+        param.setSourceRegion(new Rectangle(0, y, width, rows));
+        BufferedImage strip = reader.read(0, param);
+        for (int i = 0; i < rows; i++) {
+          strip.getRGB(0, i, width, 1, row, 0, width);
+          raster.writeRow(y + i, row);
+        }
       }
-      pixelList.add(row);
-    }
 
-    // Convert from BufferedImage to ImageInterface
+      // Return the image
+      return new ImageImpl(raster, 255);
+    } finally {
+      reader.dispose();
+      input.close();
+    }
+  }
 
-    // Return the image
-    return new ImageImpl(pixelList);
+  /**
+   * Returns true if the reader of the format finds a region of rows without decoding the rows
+   * above it, so that a large image can be read a strip at a time in linear time.
+   *
+   * @return whether the format is read in strips
+   */
+  protected boolean readsRegions() {
+    return false;
   }
 
   @Override
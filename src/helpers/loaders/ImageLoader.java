@@ -4,6 +4,7 @@ import java.io.FileInputStream;
 import java.io.IOException;
 
 import imagemodel.ImageInterface;
+import imagemodel.StorageType;
 
 /**
  * This interface represents the ImageLoader class. It is used to load images from a file path.
@@ -20,6 +21,16 @@ public interface ImageLoader {
    */
   ImageInterface loadImage(FileInputStream fileInputStream) throws IOException;
 
+  /**
+   * This method loads an image from a file path into the given kind of storage.
+   *
+   * @param fileInputStream the image bytes to be loaded
+   * @param storage         where the pixels of the loaded image are kept
+   * @return the image loaded from the file path
+   */
+  ImageInterface loadImage(FileInputStream fileInputStream, StorageType storage)
+          throws IOException;
+
   /**
    * Returns the supported extension of the image loader.
    *
@@ -2,11 +2,10 @@ package helpers.loaders;
 
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 
 import helpers.ImageUtil;
 import imagemodel.ImageInterface;
+import imagemodel.StorageType;
 
 /**
  * This class represents the PPMLoader class. It is a concrete implementation of the ImageLoader
@@ -16,24 +15,17 @@ public class PPMLoader implements ImageLoader {
 
   @Override
   public ImageInterface loadImage(FileInputStream fileInputStream) throws IOException {
-    if (fileInputStream.available() == 0) {
-      throw new IllegalArgumentException("The file is empty");
-    }
-    return loadImagePPM(fileInputStream.readAllBytes());
+    return loadImage(fileInputStream, StorageType.AUTO);
   }
 
-  /**
-   * Load an image from the given bytes array.
-   *
-   * @param fileBytes the binary content of the file to load the image from
-   * @return an image object
-   */
-  private ImageInterface loadImagePPM(byte[] fileBytes) {
-    // Validate that the file is not empty
-    if (fileBytes.length == 0) {
+  @Override
+  public ImageInterface loadImage(FileInputStream fileInputStream, StorageType storage)
+          throws IOException {
+    if (fileInputStream.available() == 0) {
       throw new IllegalArgumentException("The file is empty");
     }
-    return ImageUtil.readPPM(fileBytes);
+    // The samples are parsed straight from the stream into the raster
+    return ImageUtil.readPPM(fileInputStream, storage);
   }
 
   @Override
@@ -43,9 +35,9 @@ public class PPMLoader implements ImageLoader {
 
   @Override
   public boolean isValidImage(String filePath) {
-    try {
-      return this.loadImagePPM(Files.readAllBytes(Paths.get(filePath))) != null;
-    } catch (IOException e) {
+    try (FileInputStream stream = new FileInputStream(filePath)) {
+      return this.loadImage(stream) != null;
+    } catch (IOException | IllegalArgumentException e) {
       return false;
     }
   }
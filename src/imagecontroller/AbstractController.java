@@ -8,10 +8,15 @@ import helpers.Constants;
 import helpers.ImageImplHelper;
 import helpers.Response;
 import imagecontroller.commands.Blur;
+import imagecontroller.commands.BoxBlur;
 import imagecontroller.commands.Brighten;
+import imagecontroller.commands.Convolve;
+import imagecontroller.commands.Curves;
 import imagecontroller.commands.Dither;
+import imagecontroller.commands.GaussianBlur;
 import imagecontroller.commands.Greyscale;
 import imagecontroller.commands.HorizontalFlip;
+import imagecontroller.commands.Levels;
 import imagecontroller.commands.Load;
 import imagecontroller.commands.Mosaic;
 import imagecontroller.commands.RGBCombine;
@@ -60,6 +65,11 @@ public abstract class AbstractController implements ImageControllerInterface {
     knownCommands.put("rgb-split", new RGBSplit());
     knownCommands.put("rgb-combine", new RGBCombine(imgHelper));
     knownCommands.put("blur", new Blur());
+    knownCommands.put("box-blur", new BoxBlur());
+    knownCommands.put("gaussian-blur", new GaussianBlur());
+    knownCommands.put("convolve", new Convolve());
+    knownCommands.put("levels", new Levels());
+    knownCommands.put("curves", new Curves());
     knownCommands.put("sharpen", new Sharpen());
     knownCommands.put("sepia", new Sepia());
     knownCommands.put("dither", new Dither());
@@ -5,6 +5,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import helpers.Constants;
 import helpers.ImageImplHelper;
 import helpers.Response;
 import imagecontroller.savers.GenericSaver;
@@ -35,7 +36,15 @@ public class GraphicalController extends AbstractController {
   public Response operationHandler(String command, List<String> arguments) {
     Response operationResp = super.operationHandler(command, arguments);
     if (command.equalsIgnoreCase("rgb-split")) {
-      this.imageStore.getStack().push(arguments.get(1));
+      // Show the first channel that was produced
+      String shown = arguments.get(1);
+      for (int i = 1; i < arguments.size() && i <= 3; i++) {
+        if (!arguments.get(i).equals(Constants.SKIP_IMAGE)) {
+          shown = arguments.get(i);
+          break;
+        }
+      }
+      this.imageStore.getStack().push(shown);
     }
     if (operationResp.getResponseType() == Response.ResponseType.SUCCESS) {
       if (command.equalsIgnoreCase("rgb-combine")) {
@@ -53,6 +62,7 @@ public class GraphicalController extends AbstractController {
       }
     }
 
+    this.view.setMemoryStatus(this.imageStore.memorySummary());
     return operationResp;
   }
 
@@ -66,6 +76,7 @@ public class GraphicalController extends AbstractController {
   protected void loadImage(String imageFile) throws IOException {
     this.imageStore.getImages().put(imageFile, this.imgHelper.loadImage(imageFile));
     this.imageStore.getStack().push(imageFile);
+    this.view.setMemoryStatus(this.imageStore.memorySummary());
     this.view.sendOutput(
             new Response(
                     "Image loaded successfully.",
@@ -94,6 +94,16 @@ public class ImageController extends AbstractController {
         break;
       }
 
+      if (inputSet.get(0).equals("memory")) {
+        try {
+          view.sendOutput(new Response(imageStore.memoryReport()));
+        } catch (IOException e) {
+          System.err.println("Error sending output to the user");
+          System.exit(-11);
+        }
+        continue;
+      }
+
       // 1.3. Delegate the operation to the operation handler
       // 1.4. Get the result from the operation handler
       Response resp;
@@ -123,7 +133,8 @@ public class ImageController extends AbstractController {
 
     sb.append("\n\n");
     sb.append("To view the available commands again, type \"help\". "
-            + "To quit the program, type \"quit\".\n");
+            + "To quit the program, type \"quit\". "
+            + "To see the memory held by the loaded images, type \"memory\".\n");
     return new Response(sb.toString());
   }
 
@@ -179,6 +190,8 @@ public class ImageController extends AbstractController {
         Response resp;
         if (command.equals("run")) {
           resp = runScript(lineArguments);
+        } else if (command.equals("memory")) {
+          resp = new Response(imageStore.memoryReport());
         } else {
           resp = operationHandler(command, lineArguments);
         }
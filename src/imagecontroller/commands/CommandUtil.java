@@ -9,6 +9,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Stack;
 
+import helpers.Constants;
+import imagemodel.EdgeMode;
 import imagemodel.ImageInterface;
 
 /**
@@ -46,6 +48,20 @@ public class CommandUtil {
     }
   }
 
+  /**
+   * Validates that the name can be given to an image. The name Constants.SKIP_IMAGE is reserved
+   * for destinations that a command should not produce, so an image of that name could never be
+   * written by rgb-split.
+   *
+   * @param imgName the name of the image.
+   * @throws IllegalArgumentException if the name is reserved.
+   */
+  public static void validateImageName(String imgName) throws IllegalArgumentException {
+    if (Constants.SKIP_IMAGE.equals(imgName)) {
+      throw new IllegalArgumentException("The image name " + imgName + " is reserved");
+    }
+  }
+
   /**
    * Validates that the file exists and is not empty.
    *
@@ -95,6 +111,26 @@ public class CommandUtil {
     }
   }
 
+  /**
+   * Removes an edge mode option such as --clamp from the front of the arguments, if there is one.
+   *
+   * @param arguments the list of arguments, which loses the option.
+   * @return the edge mode of the option, or EdgeMode.ZERO if there is none.
+   * @throws IllegalArgumentException if the option is not a known edge mode.
+   */
+  public static EdgeMode removeEdgeMode(List<String> arguments) throws IllegalArgumentException {
+    if (arguments == null || arguments.isEmpty() || !arguments.get(0).startsWith("--")) {
+      return EdgeMode.ZERO;
+    }
+    String option = arguments.remove(0);
+    for (EdgeMode edgeMode : EdgeMode.values()) {
+      if (option.equals("--" + edgeMode.name().toLowerCase())) {
+        return edgeMode;
+      }
+    }
+    throw new IllegalArgumentException("Unknown edge mode: " + option);
+  }
+
   /**
    * Adds appropriate args if no args are given.
    */
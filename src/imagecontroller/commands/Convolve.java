@@ -0,0 +1,43 @@
+package imagecontroller.commands;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Stack;
+
+import helpers.KernelRegistry;
+import imagecontroller.ImageCommandInterface;
+import imagemodel.EdgeMode;
+import imagemodel.ImageInterface;
+import imagemodel.ImageStore;
+import imagemodel.Kernel;
+
+/**
+ * Convolve class implements ImageCommandInterface. Convolve class is used to filter an image with
+ * a kernel read from a text file. Kernel files are kept in a registry, so a file that is used
+ * again is only read again after it changes.
+ */
+public class Convolve implements ImageCommandInterface {
+
+  private final KernelRegistry kernels = new KernelRegistry();
+
+  @Override
+  public void operate(ImageStore imageStore, List<String> arguments)
+          throws IllegalArgumentException {
+
+    Stack<String> workedOn = imageStore.getStack();
+    EdgeMode edgeMode = CommandUtil.removeEdgeMode(arguments);
+
+    Map<String, ImageInterface> images = imageStore.getImages();
+    CommandUtil.validateArgCount("Convolve", arguments, 3);
+    CommandUtil.validateImageExists(images, arguments.get(1));
+    Kernel kernel = this.kernels.getKernel(arguments.get(0));
+    ImageInterface result = images.get(arguments.get(1)).convolve(kernel, edgeMode);
+    images.put(arguments.get(2), result);
+    workedOn.push(arguments.get(2));
+  }
+
+  @Override
+  public String toString() {
+    return "convolve [--zero|--clamp|--mirror|--wrap] kernel-file img-src img-dest";
+  }
+}
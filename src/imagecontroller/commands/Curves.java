@@ -0,0 +1,36 @@
+package imagecontroller.commands;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Stack;
+
+import helpers.CurveReader;
+import imagecontroller.ImageCommandInterface;
+import imagemodel.ImageInterface;
+import imagemodel.ImageStore;
+
+/**
+ * Curves class implements ImageCommandInterface. Curves class is used to map the values of an
+ * image through a tone curve read from a text file.
+ */
+public class Curves implements ImageCommandInterface {
+
+  @Override
+  public void operate(ImageStore imageStore, List<String> arguments)
+          throws IllegalArgumentException {
+
+    Stack<String> workedOn = imageStore.getStack();
+    Map<String, ImageInterface> images = imageStore.getImages();
+    CommandUtil.validateArgCount("Curves", arguments, 3);
+    CommandUtil.validateImageExists(images, arguments.get(1));
+    ImageInterface source = images.get(arguments.get(1));
+    images.put(arguments.get(2),
+            source.applyLut(CurveReader.readCurve(arguments.get(0), source.getMaxValue())));
+    workedOn.push(arguments.get(2));
+  }
+
+  @Override
+  public String toString() {
+    return "curves curve-file img-src img-dest";
+  }
+}
@@ -0,0 +1,38 @@
+package imagecontroller.commands;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Stack;
+
+import imagecontroller.ImageCommandInterface;
+import imagemodel.ChannelLut;
+import imagemodel.ImageInterface;
+import imagemodel.ImageStore;
+
+/**
+ * Levels class implements ImageCommandInterface. Levels class is used to stretch the values of an
+ * image between a black and a white point, with a gamma correction of the mid-tones.
+ */
+public class Levels implements ImageCommandInterface {
+
+  @Override
+  public void operate(ImageStore imageStore, List<String> arguments)
+          throws IllegalArgumentException {
+
+    Stack<String> workedOn = imageStore.getStack();
+    Map<String, ImageInterface> images = imageStore.getImages();
+    CommandUtil.validateArgCount("Levels", arguments, 5);
+    CommandUtil.validateImageExists(images, arguments.get(3));
+    ImageInterface source = images.get(arguments.get(3));
+    ChannelLut levels = ChannelLut.levels(Integer.parseInt(arguments.get(0)),
+            Integer.parseInt(arguments.get(1)), Double.parseDouble(arguments.get(2)),
+            source.getMaxValue());
+    images.put(arguments.get(4), source.applyLut(levels));
+    workedOn.push(arguments.get(4));
+  }
+
+  @Override
+  public String toString() {
+    return "levels black white gamma img-src img-dest";
+  }
+}
@@ -7,6 +7,7 @@ import helpers.ImageImplHelper;
 import imagecontroller.ImageCommandInterface;
 import imagemodel.ImageInterface;
 import imagemodel.ImageStore;
+import imagemodel.StorageType;
 
 /**
  * Load class implements ImageCommandInterface. Load class is used to load an image.
@@ -30,7 +31,26 @@ public class Load implements ImageCommandInterface {
 
     Map<String, ImageInterface> images = imageStore.getImages();
 
+    if (arguments != null && arguments.size() == 3) {
+      // The first argument selects where the pixels of the image are kept
+      StorageType storage;
+      if (arguments.get(0).equals("--offheap")) {
+        storage = StorageType.OFF_HEAP;
+      } else if (arguments.get(0).equals("--mapped")) {
+        storage = StorageType.MAPPED;
+      } else if (arguments.get(0).equals("--tiled")) {
+        storage = StorageType.TILED;
+      } else {
+        throw new IllegalArgumentException("Unknown storage option: " + arguments.get(0));
+      }
+      CommandUtil.validateImageName(arguments.get(2));
+      CommandUtil.validateFilePath(arguments.get(1));
+      images.put(arguments.get(2), imgHelper.loadImage(arguments.get(1), storage));
+      return;
+    }
+
     CommandUtil.validateArgCount("Load", arguments, 2);
+    CommandUtil.validateImageName(arguments.get(1));
     CommandUtil.validateFilePath(arguments.get(0));
     ImageInterface loadedImage = imgHelper.loadImage(arguments.get(0));
     images.put(arguments.get(1), loadedImage);
@@ -38,6 +58,6 @@ public class Load implements ImageCommandInterface {
 
   @Override
   public String toString() {
-    return "Load file-path image-name";
+    return "Load [--offheap|--mapped|--tiled] file-path image-name";
   }
 }
@@ -3,16 +3,21 @@ package imagecontroller.commands;
 import java.util.List;
 import java.util.Map;
 
+import helpers.Constants;
 import imagecontroller.ImageCommandInterface;
 import imagemodel.ImageInterface;
 import imagemodel.ImageStore;
 
 /**
  * RGBSplit class implements ImageCommandInterface. RGBSplit class is used to split an image into
- * three images, one for each color channel.
+ * three images, one for each color channel. A destination named _ skips its channel, so a caller
+ * that only needs one channel does not pay for the others.
  */
 public class RGBSplit implements ImageCommandInterface {
 
+  private static final String[] COMPONENTS = {"red-component", "green-component",
+      "blue-component"};
+
   @Override
   public void operate(ImageStore imageStore, List<String> arguments)
           throws IllegalArgumentException {
@@ -20,14 +25,26 @@ public class RGBSplit implements ImageCommandInterface {
     Map<String, ImageInterface> images = imageStore.getImages();
     CommandUtil.validateArgCount("RGB Split", arguments, 4);
     CommandUtil.validateImageExists(images, arguments.get(0));
-    List<ImageInterface> result = images.get(arguments.get(0)).rgbSplit();
-    images.put(arguments.get(1), result.get(0));
-    images.put(arguments.get(2), result.get(1));
-    images.put(arguments.get(3), result.get(2));
+    ImageInterface source = images.get(arguments.get(0));
+    List<String> destinations = arguments.subList(1, 4);
+    if (!destinations.contains(Constants.SKIP_IMAGE)) {
+      // All three channels are split in a single pass
+      List<ImageInterface> result = source.rgbSplit();
+      for (int band = 0; band < 3; band++) {
+        images.put(destinations.get(band), result.get(band));
+      }
+      return;
+    }
+    // Only the channels that are kept are extracted
+    for (int band = 0; band < 3; band++) {
+      if (!destinations.get(band).equals(Constants.SKIP_IMAGE)) {
+        images.put(destinations.get(band), source.greyscale(COMPONENTS[band]));
+      }
+    }
   }
 
   @Override
   public String toString() {
-    return "rgb-split img-src img-red img-green img-blue";
+    return "rgb-split img-src img-red img-green img-blue (_ skips a channel)";
   }
 }
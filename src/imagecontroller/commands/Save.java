@@ -57,6 +57,7 @@ public class Save implements ImageCommandInterface {
       CommandUtil.validateImageExists(images, imageStore.getStack().peek());
       imageToSave = images.get(imageStore.getStack().peek());
     } else {
+      CommandUtil.validateImageName(arguments.get(1));
       CommandUtil.validateImageExists(images, arguments.get(1));
       imageToSave = images.get(arguments.get(1));
     }
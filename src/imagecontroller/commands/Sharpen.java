@@ -7,6 +7,7 @@ import java.util.Map;
 import java.util.Stack;
 
 import imagecontroller.ImageCommandInterface;
+import imagemodel.EdgeMode;
 import imagemodel.ImageInterface;
 import imagemodel.ImageStore;
 import imagemodel.Kernel;
@@ -36,18 +37,19 @@ public class Sharpen implements ImageCommandInterface {
           throws IllegalArgumentException {
 
     Stack<String> workedOn = imageStore.getStack();
+    EdgeMode edgeMode = CommandUtil.removeEdgeMode(arguments);
     arguments = CommandUtil.fixArgs(workedOn, arguments);
 
     Map<String, ImageInterface> images = imageStore.getImages();
     CommandUtil.validateArgCount("Sharpen", arguments, 2);
     CommandUtil.validateImageExists(images, arguments.get(0));
-    ImageInterface result = images.get(arguments.get(0)).sharpen(sharpen);
+    ImageInterface result = images.get(arguments.get(0)).sharpen(sharpen, edgeMode);
     images.put(arguments.get(1), result);
     workedOn.push(arguments.get(1));
   }
 
   @Override
   public String toString() {
-    return "sharpen img-src img-dest";
+    return "sharpen [--zero|--clamp|--mirror|--wrap] img-src img-dest";
   }
 }
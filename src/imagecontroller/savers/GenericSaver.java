@@ -3,14 +3,12 @@ package imagecontroller.savers;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
-import java.util.List;
 
 import javax.imageio.ImageIO;
 
 import helpers.Response;
 import imagecontroller.ImageSaver;
 import imagemodel.ImageInterface;
-import imagemodel.PixelInterface;
 
 /**
  * GenericSaver class implements ImageSaver. GenericSaver class is used to save an image. Any image
@@ -25,20 +23,15 @@ public abstract class GenericSaver implements ImageSaver {
    * @param imageInterfaceObject object of type ImageInterface.
    */
   public static BufferedImage getBufferedImage(ImageInterface imageInterfaceObject) {
-    List<List<PixelInterface>> imageArray = imageInterfaceObject.getImageArray();
-    BufferedImage image = new BufferedImage(
-            imageArray.get(0).size(),
-            imageArray.size(),
-            BufferedImage.TYPE_INT_RGB
-    );
-    for (int i = 0; i < imageArray.size(); i++) {
-      for (int j = 0; j < imageArray.get(0).size(); j++) {
-        // Make the corresponding rgb value from the red, green and blue values
-        int rgbVal = (imageArray.get(i).get(j).getRed() << 16)
-                | (imageArray.get(i).get(j).getGreen() << 8)
-                | imageArray.get(i).get(j).getBlue();
-        image.setRGB(j, i, rgbVal);
-      }
+    int height = imageInterfaceObject.getHeight();
+    int width = imageInterfaceObject.getWidth();
+    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+
+    // Copy the packed rgb values of the image one row at a time
+    int[] row = new int[width];
+    for (int i = 0; i < height; i++) {
+      imageInterfaceObject.readRow(i, row);
+      image.setRGB(0, i, width, 1, row, 0, width);
     }
     return image;
   }
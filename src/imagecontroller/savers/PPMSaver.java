@@ -20,22 +20,24 @@ public class PPMSaver implements ImageSaver {
 
     // PPM format attributes
     String magicNumber = "P3";
-    int width = image.getImageArray().get(0).size();
-    int height = image.getImageArray().size();
+    int width = image.getWidth();
+    int height = image.getHeight();
 
     // Write the PPM file
     try {
       PrintWriter writer = new PrintWriter(path, StandardCharsets.UTF_8);
       writer.println(magicNumber);
       writer.println(width + " " + height);
-      writer.println(255);
-      for (int i = 0; i < image.getImageArray().size(); i++) {
-        for (int j = 0; j < image.getImageArray().get(i).size(); j++) {
-          writer.print(image.getImageArray().get(i).get(j).getRed() + " ");
-          writer.print(image.getImageArray().get(i).get(j).getGreen() + " ");
-          writer.print(image.getImageArray().get(i).get(j).getBlue() + " ");
+      writer.println(image.getMaxValue());
+      int[] row = new int[3 * width];
+      StringBuilder line = new StringBuilder();
+      for (int i = 0; i < height; i++) {
+        image.readSamples(i, row);
+        line.setLength(0);
+        for (int k = 0; k < row.length; k++) {
+          line.append(row[k]).append(' ');
         }
-        writer.println();
+        writer.println(line);
       }
       writer.close();
     } catch (FileNotFoundException e) {
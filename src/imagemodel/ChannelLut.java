@@ -0,0 +1,230 @@
+package imagemodel;
+
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * This class represents a lookup table for each channel of an image, mapping every value a sample
+ * can take to a new value. Any adjustment that changes each sample on its own, such as brighten,
+ * levels or curves, is computed once for every possible value when the table is built, so
+ * applying it costs one lookup per sample whatever the adjustment.
+ */
+public class ChannelLut {
+
+  private final int maxValue;
+  private final int[] red;
+  private final int[] green;
+  private final int[] blue;
+
+  /**
+   * Construct a lookup table from one table per channel. Each table maps the values 0 to its
+   * length - 1, which is the largest value of a sample.
+   *
+   * @param red   the new value of every red value
+   * @param green the new value of every green value
+   * @param blue  the new value of every blue value
+   * @throws IllegalArgumentException if a table is null or empty, the tables have different
+   *                                  lengths, or a new value is outside of the tables
+   */
+  public ChannelLut(int[] red, int[] green, int[] blue) throws IllegalArgumentException {
+    if (red == null || green == null || blue == null) {
+      throw new IllegalArgumentException("The lookup tables cannot be null");
+    }
+    if (red.length == 0 || red.length != green.length || red.length != blue.length) {
+      throw new IllegalArgumentException("The lookup tables must have the same, non zero length");
+    }
+    this.maxValue = red.length - 1;
+    this.red = validate(red.clone());
+    this.green = validate(green.clone());
+    this.blue = validate(blue.clone());
+  }
+
+  /**
+   * Return a lookup table that maps every channel through the given function. Results outside of
+   * 0 to maxValue are clamped.
+   *
+   * @param maxValue the largest value of a sample
+   * @param function the new value of every value from 0 to maxValue
+   * @return the lookup table
+   * @throws IllegalArgumentException if the function is null or maxValue is negative
+   */
+  public static ChannelLut of(int maxValue, IntUnaryOperator function)
+          throws IllegalArgumentException {
+    if (function == null) {
+      throw new IllegalArgumentException("The function cannot be null");
+    }
+    if (maxValue < 0) {
+      throw new IllegalArgumentException("The largest value cannot be negative");
+    }
+    int[] table = new int[maxValue + 1];
+    for (int v = 0; v <= maxValue; v++) {
+      table[v] = Math.max(0, Math.min(maxValue, function.applyAsInt(v)));
+    }
+    return new ChannelLut(table, table, table);
+  }
+
+  /**
+   * Return a lookup table that adds the given value to every sample.
+   *
+   * @param value    the value to add, negative to darken
+   * @param maxValue the largest value of a sample
+   * @return the lookup table
+   * @throws IllegalArgumentException if maxValue is negative
+   */
+  public static ChannelLut brighten(int value, int maxValue) throws IllegalArgumentException {
+    return of(maxValue, v -> v + value);
+  }
+
+  /**
+   * Return a lookup table that adjusts the levels of every channel. Values up to black become 0,
+   * values from white up become maxValue, and the values in between are stretched over the whole
+   * range and raised to the power 1 / gamma, so a gamma above 1 brightens the mid-tones.
+   *
+   * @param black    the value that becomes 0
+   * @param white    the value that becomes maxValue
+   * @param gamma    the gamma correction of the mid-tones, 1 for none
+   * @param maxValue the largest value of a sample
+   * @return the lookup table
+   * @throws IllegalArgumentException if black is not less than white, they are not from 0 to
+   *                                  maxValue, or gamma is not a positive number
+   */
+  public static ChannelLut levels(int black, int white, double gamma, int maxValue)
+          throws IllegalArgumentException {
+    if (black < 0 || white > maxValue || black >= white) {
+      throw new IllegalArgumentException("Levels need 0 <= black < white <= " + maxValue);
+    }
+    if (!(gamma > 0) || Double.isInfinite(gamma)) {
+      throw new IllegalArgumentException("Gamma must be a positive number");
+    }
+    return of(maxValue, v -> {
+      double x = Math.max(0, Math.min(1, (v - black) / (double) (white - black)));
+      return (int) Math.round(maxValue * Math.pow(x, 1 / gamma));
+    });
+  }
+
+  /**
+   * Return a lookup table that maps every channel through a curve. The curve passes through the
+   * given points and is linear between them. Values before the first point map to its output and
+   * values after the last point map to its output.
+   *
+   * @param inputs   the inputs of the points, increasing, from 0 to maxValue
+   * @param outputs  the outputs of the points, from 0 to maxValue
+   * @param maxValue the largest value of a sample
+   * @return the lookup table
+   * @throws IllegalArgumentException if there are no points, the lists have different sizes, the
+   *                                  inputs are not increasing or a value is out of range
+   */
+  public static ChannelLut curve(List<Integer> inputs, List<Integer> outputs, int maxValue)
+          throws IllegalArgumentException {
+    if (inputs == null || outputs == null || inputs.isEmpty()
+            || inputs.size() != outputs.size()) {
+      throw new IllegalArgumentException("A curve needs the same, non zero number of inputs and "
+              + "outputs");
+    }
+    for (int p = 0; p < inputs.size(); p++) {
+      int in = inputs.get(p);
+      int out = outputs.get(p);
+      if (in < 0 || in > maxValue || out < 0 || out > maxValue) {
+        throw new IllegalArgumentException("Curve point out of range: " + in + " " + out);
+      }
+      if (p > 0 && in <= inputs.get(p - 1)) {
+        throw new IllegalArgumentException("The inputs of a curve must be increasing");
+      }
+    }
+    int last = inputs.size() - 1;
+    return of(maxValue, v -> {
+      if (v <= inputs.get(0)) {
+        return outputs.get(0);
+      }
+      if (v >= inputs.get(last)) {
+        return outputs.get(last);
+      }
+      int p = 1;
+      while (inputs.get(p) < v) {
+        p++;
+      }
+      int x0 = inputs.get(p - 1);
+      int y0 = outputs.get(p - 1);
+      int x1 = inputs.get(p);
+      int y1 = outputs.get(p);
+      return (int) Math.round(y0 + (y1 - y0) * (v - x0) / (double) (x1 - x0));
+    });
+  }
+
+  /**
+   * Return the largest value of a sample that the table maps.
+   *
+   * @return the largest value of a sample.
+   */
+  public int getMaxValue() {
+    return this.maxValue;
+  }
+
+  /**
+   * Return the new value of a sample.
+   *
+   * @param band  0 for red, 1 for green and 2 for blue
+   * @param value the value of the sample, from 0 to the largest value
+   * @return the new value of the sample.
+   * @throws IllegalArgumentException if the band or the value is out of range
+   */
+  public int lookup(int band, int value) throws IllegalArgumentException {
+    if (band < 0 || band > 2) {
+      throw new IllegalArgumentException("Invalid band: " + band);
+    }
+    if (value < 0 || value > this.maxValue) {
+      throw new IllegalArgumentException("Invalid value: " + value);
+    }
+    return band == 0 ? this.red[value] : band == 1 ? this.green[value] : this.blue[value];
+  }
+
+  /**
+   * Return the table that has the same effect as this table followed by the given one.
+   *
+   * @param next the table applied after this one
+   * @return the composed table
+   * @throws IllegalArgumentException if the next table is null or maps a different range
+   */
+  public ChannelLut compose(ChannelLut next) throws IllegalArgumentException {
+    if (next == null || next.maxValue != this.maxValue) {
+      throw new IllegalArgumentException("The lookup tables must map the same range");
+    }
+    int[] newRed = new int[this.maxValue + 1];
+    int[] newGreen = new int[this.maxValue + 1];
+    int[] newBlue = new int[this.maxValue + 1];
+    for (int v = 0; v <= this.maxValue; v++) {
+      newRed[v] = next.red[this.red[v]];
+      newGreen[v] = next.green[this.green[v]];
+      newBlue[v] = next.blue[this.blue[v]];
+    }
+    return new ChannelLut(newRed, newGreen, newBlue);
+  }
+
+  /**
+   * Maps a row of interleaved red, green and blue samples in place. Samples above the largest
+   * value, which files whose samples exceed their maximum value can hold, map as the largest
+   * value does.
+   *
+   * @param row the samples of the row, three per pixel, from 0 up
+   */
+  void apply(int[] row) {
+    int[] r = this.red;
+    int[] g = this.green;
+    int[] b = this.blue;
+    int max = this.maxValue;
+    for (int k = 0; k < row.length; k += 3) {
+      row[k] = r[Math.min(row[k], max)];
+      row[k + 1] = g[Math.min(row[k + 1], max)];
+      row[k + 2] = b[Math.min(row[k + 2], max)];
+    }
+  }
+
+  private int[] validate(int[] table) throws IllegalArgumentException {
+    for (int value : table) {
+      if (value < 0 || value > this.maxValue) {
+        throw new IllegalArgumentException("Lookup table value out of range: " + value);
+      }
+    }
+    return table;
+  }
+}
@@ -1,12 +1,28 @@
 package imagemodel;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * This class represents a color transform.
+ * For images of 8 bit samples the transform is applied with nine tables of 256 entries, one for
+ * each coefficient, that hold the coefficient multiplied by every sample value in fixed point.
+ * Each new sample is then three lookups, two additions and a shift. The rare sums that fall too
+ * close to a half for the fixed point error to be ruled out are computed again in floating point,
+ * so the result is always the same as the floating point transform.
  */
 public class ColorTransform {
+  // Largest sample value the tables cover
+  private static final int TABLE_MAX = 255;
+  // Distance from a half, in units of 2^-shift, beyond which the fixed point sum rounds the same
+  // way as the floating point one. Each of the three entries is off by at most half a unit.
+  private static final int MARGIN = 2;
+
   final List<List<Double>> transform;
+  private final double[] coefficients = new double[9];
+  // Coefficient c multiplied by v and 2^shift, rounded, at c * 256 + v
+  private final int[] tables;
+  private final int shift;
 
   /**
    * This constructor creates a color transform from a list of lists of doubles.
@@ -19,6 +35,151 @@ public class ColorTransform {
     if (transform.size() != transform.get(0).size() || transform.size() != 3) {
       throw new IllegalArgumentException("This is not a valid color transform");
     }
+    for (int r = 0; r < 3; r++) {
+      if (transform.get(r).size() != 3) {
+        throw new IllegalArgumentException("This is not a valid color transform");
+      }
+      for (int c = 0; c < 3; c++) {
+        this.coefficients[3 * r + c] = transform.get(r).get(c);
+      }
+    }
     this.transform = transform;
+
+    // The largest shift for which a sum of three entries still fits in an int
+    double largest = 0;
+    for (double coefficient : this.coefficients) {
+      largest = Math.max(largest, Math.abs(coefficient));
+    }
+    int shift = 29 - Math.getExponent(largest * TABLE_MAX + 1) - 1;
+    if (Double.isNaN(largest) || Double.isInfinite(largest) || shift < 8) {
+      // Too large for the tables to be any more precise than the samples
+      this.tables = null;
+      this.shift = -1;
+      return;
+    }
+    this.shift = shift;
+    this.tables = new int[9 * (TABLE_MAX + 1)];
+    for (int c = 0; c < 9; c++) {
+      for (int v = 0; v <= TABLE_MAX; v++) {
+        this.tables[c * (TABLE_MAX + 1) + v] =
+                (int) Math.round(Math.scalb(this.coefficients[c] * v, shift));
+      }
+    }
+  }
+
+  /**
+   * Return the transform that has the same effect as this transform followed by the given one,
+   * without rounding or clamping in between. Its matrix is the product of the two matrices.
+   *
+   * @param next the transform applied after this one
+   * @return the composed transform
+   * @throws IllegalArgumentException if the next transform is null
+   */
+  public ColorTransform compose(ColorTransform next) throws IllegalArgumentException {
+    if (next == null) {
+      throw new IllegalArgumentException("Color transform is null");
+    }
+    List<List<Double>> product = new ArrayList<>();
+    for (int r = 0; r < 3; r++) {
+      List<Double> row = new ArrayList<>();
+      for (int c = 0; c < 3; c++) {
+        double sum = 0;
+        for (int k = 0; k < 3; k++) {
+          sum += next.coefficients[3 * r + k] * this.coefficients[3 * k + c];
+        }
+        row.add(sum);
+      }
+      product.add(row);
+    }
+    return new ColorTransform(product);
+  }
+
+  /**
+   * Return true if the transform never clamps a result for samples from 0 to max, that is if
+   * every combination of samples gives results that round to values from 0 to max.
+   *
+   * @param max the largest value of a sample
+   * @return whether no result of the transform is ever clamped.
+   */
+  public boolean staysInRange(int max) {
+    // Well clear of the halves, so that the error of the sums does not matter
+    double margin = 1e-9 * (max + 1);
+    for (int r = 0; r < 3; r++) {
+      double lowest = 0;
+      double highest = 0;
+      for (int c = 0; c < 3; c++) {
+        double coefficient = this.coefficients[3 * r + c];
+        lowest += Math.min(0, coefficient) * max;
+        highest += Math.max(0, coefficient) * max;
+      }
+      if (!(lowest > -0.5 + margin && highest < max + 0.5 - margin)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Applies the transform in place to a row of interleaved red, green and blue samples and clamps
+   * the results to 0 to max.
+   *
+   * @param row the samples of the row, three per pixel, which may exceed max
+   * @param max the largest value of a sample
+   */
+  void apply(int[] row, int max) {
+    if (this.tables == null || max > TABLE_MAX) {
+      applyExactly(row, max);
+      return;
+    }
+    int[] t = this.tables;
+    int half = 1 << (this.shift - 1);
+    int mask = (1 << this.shift) - 1;
+    for (int k = 0; k < row.length; k += 3) {
+      int red = row[k];
+      int green = row[k + 1];
+      int blue = row[k + 2];
+      if (((red | green | blue) & ~TABLE_MAX) != 0) {
+        // Beyond the tables, as when a raster holds samples above the maximum of its image
+        applyExactly(row, k, max);
+        continue;
+      }
+      int redSum = t[red] + t[256 + green] + t[512 + blue] + half;
+      int greenSum = t[768 + red] + t[1024 + green] + t[1280 + blue] + half;
+      int blueSum = t[1536 + red] + t[1792 + green] + t[2048 + blue] + half;
+      if (((redSum + MARGIN) & mask) <= 2 * MARGIN || ((greenSum + MARGIN) & mask) <= 2 * MARGIN
+              || ((blueSum + MARGIN) & mask) <= 2 * MARGIN) {
+        // Within the error of the tables from a half
+        applyExactly(row, k, max);
+        continue;
+      }
+      row[k] = Math.max(0, Math.min(max, redSum >> this.shift));
+      row[k + 1] = Math.max(0, Math.min(max, greenSum >> this.shift));
+      row[k + 2] = Math.max(0, Math.min(max, blueSum >> this.shift));
+    }
+  }
+
+  /**
+   * Same as apply, computing every sample in floating point.
+   *
+   * @param row the samples of the row, three per pixel
+   * @param max the largest value of a sample
+   */
+  void applyExactly(int[] row, int max) {
+    for (int k = 0; k < row.length; k += 3) {
+      applyExactly(row, k, max);
+    }
+  }
+
+  // Transforms the pixel whose samples start at k in floating point
+  private void applyExactly(int[] row, int k, int max) {
+    double[] coeffs = this.coefficients;
+    int red = row[k];
+    int green = row[k + 1];
+    int blue = row[k + 2];
+    for (int band = 0; band < 3; band++) {
+      int value = (int) Math.round(coeffs[3 * band] * red + coeffs[3 * band + 1] * green
+              + coeffs[3 * band + 2] * blue);
+      row[k + band] = Math.max(0, Math.min(max, value));
+    }
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,54 @@
+package imagemodel;
+
+/**
+ * This enum represents how a filter treats the pixels its kernel reaches beyond the edges of an
+ * image.
+ */
+public enum EdgeMode {
+  /**
+   * Pixels outside of the image are black, so they add nothing to the weighted sum.
+   */
+  ZERO,
+  /**
+   * Pixels outside of the image repeat the nearest pixel on the edge.
+   */
+  CLAMP,
+  /**
+   * Pixels outside of the image reflect the image about its edge pixels, so the column left of
+   * the first one is the second column.
+   */
+  MIRROR,
+  /**
+   * Pixels outside of the image continue from the opposite edge, as if the image was tiled.
+   */
+  WRAP;
+
+  /**
+   * Maps a row or column index that may lie outside of the image to the index inside the image
+   * whose pixel takes its place.
+   *
+   * @param index  the index, which may be negative or at least length
+   * @param length the number of rows or columns of the image, at least 1
+   * @return the index inside the image, or -1 if the pixel is black
+   */
+  public int map(int index, int length) {
+    if (index >= 0 && index < length) {
+      return index;
+    }
+    switch (this) {
+      case CLAMP:
+        return index < 0 ? 0 : length - 1;
+      case MIRROR:
+        if (length == 1) {
+          return 0;
+        }
+        int period = 2 * (length - 1);
+        int position = Math.floorMod(index, period);
+        return position < length ? position : period - position;
+      case WRAP:
+        return Math.floorMod(index, length);
+      default:
+        return -1;
+    }
+  }
+}
@@ -0,0 +1,256 @@
+package imagemodel;
+
+import java.util.Arrays;
+
+/**
+ * This class applies a large kernel through the fast Fourier transform. The region to filter is
+ * cut into square blocks whose padded source fits a transform of fftSize x fftSize samples, so
+ * memory stays bounded however large the image is. Each block is transformed, multiplied by the
+ * precomputed spectrum of the kernel and transformed back, and only the samples that the
+ * circular wrap-around does not reach are kept (overlap-save). Two channels share one complex
+ * transform, the first in the real part and the second in the imaginary part.
+ * Like the direct filter, the kernel is applied without flipping it. For kernels whose weights
+ * are exact binary fractions the exact sum is recovered before rounding, so the result equals
+ * the direct filter as long as isExact holds for the depth of the samples. For other kernels a
+ * sample can differ from it by one where the sum lies within rounding error of a half.
+ */
+final class FftConvolver {
+
+  /**
+   * Smallest kernel size for which the transform is faster than a direct filter.
+   */
+  static final int MIN_KERNEL_SIZE = 15;
+  // Safety factor over the usual bound on the error of a convolution through the transform
+  private static final double ERROR_FACTOR = 4;
+
+  private final int size;
+  private final KernelWeights weights;
+  private final int fftSize;
+  private final int logSize;
+  // Spectrum of the kernel, conjugated so that the product computes a correlation
+  private final double[] kernelReal;
+  private final double[] kernelImag;
+  // Twiddle factors and bit reversal of a transform of fftSize samples
+  private final double[] cos;
+  private final double[] sin;
+  private final int[] reversed;
+  // Euclidean norm of the weights
+  private final double norm;
+
+  /**
+   * Prepares the transform of the given kernel.
+   *
+   * @param weights the weights of the kernel in row-major order
+   * @param size    the size of the kernel
+   */
+  FftConvolver(KernelWeights weights, int size) {
+    this.size = size;
+    this.weights = weights;
+    // About eight times the overlap keeps the discarded border of a block small
+    int n = 64;
+    while (n < 8 * (size - 1)) {
+      n *= 2;
+    }
+    this.fftSize = n;
+    this.logSize = Integer.numberOfTrailingZeros(n);
+
+    this.cos = new double[n / 2];
+    this.sin = new double[n / 2];
+    for (int i = 0; i < n / 2; i++) {
+      this.cos[i] = Math.cos(2 * Math.PI * i / n);
+      this.sin[i] = -Math.sin(2 * Math.PI * i / n);
+    }
+    this.reversed = new int[n];
+    for (int i = 0; i < n; i++) {
+      this.reversed[i] = Integer.reverse(i) >>> (32 - this.logSize);
+    }
+
+    this.kernelReal = new double[n * n];
+    this.kernelImag = new double[n * n];
+    double[] values = weights.values();
+    double squares = 0;
+    for (double value : values) {
+      squares += value * value;
+    }
+    this.norm = Math.sqrt(squares);
+    for (int fi = 0; fi < size; fi++) {
+      System.arraycopy(values, fi * size, this.kernelReal, fi * n, size);
+    }
+    transform(this.kernelReal, this.kernelImag, false);
+    for (int i = 0; i < this.kernelImag.length; i++) {
+      this.kernelImag[i] = -this.kernelImag[i];
+    }
+  }
+
+  /**
+   * Return true if the exact sums of a fixed point kernel are recovered for samples up to max.
+   * The error of a sum computed through the transform grows with the largest sample, the size of
+   * the transform and the norm of the weights. The sum is only exact if that error is bounded
+   * well below half of a unit of 2^-shift, which can fail for 16 bit samples and large kernels
+   * scaled by a large power of two.
+   *
+   * @param max the largest value of a sample
+   * @return whether the result equals the direct filter for every image of that depth.
+   */
+  boolean isExact(int max) {
+    if (!this.weights.isFixedPoint()) {
+      return false;
+    }
+    double error = ERROR_FACTOR * Math.ulp(1.0) * 2 * this.logSize * max * this.fftSize
+            * this.norm;
+    return error < Math.scalb(1.0, -this.weights.getShift() - 2);
+  }
+
+  /**
+   * Return the number of output rows and columns computed from one transform.
+   *
+   * @return the size of a block of the output.
+   */
+  int getBlockSize() {
+    return this.fftSize - this.size + 1;
+  }
+
+  /**
+   * Filters a region into interleaved samples, row after row.
+   *
+   * @param rows    the rows the region depends on, height + size - 1 of them, each holding the
+   *                samples of width + size - 1 pixels, as read by ImageImpl
+   * @param width   the width of the region
+   * @param height  the height of the region
+   * @param max     the largest value of a sample
+   * @param samples the array to fill, holding 3 * width * height elements
+   */
+  void filter(int[][] rows, int width, int height, int max, int[] samples) {
+    int n = this.fftSize;
+    int block = getBlockSize();
+    double[] real = new double[n * n];
+    double[] imag = new double[n * n];
+    for (int by = 0; by < height; by += block) {
+      for (int bx = 0; bx < width; bx += block) {
+        int blockHeight = Math.min(block, height - by);
+        int blockWidth = Math.min(block, width - bx);
+        // Red and green together, then blue alone
+        filterBlock(rows, bx, by, blockWidth, blockHeight, 0, 1, real, imag);
+        store(real, bx, by, blockWidth, blockHeight, 0, width, max, samples);
+        store(imag, bx, by, blockWidth, blockHeight, 1, width, max, samples);
+        filterBlock(rows, bx, by, blockWidth, blockHeight, 2, -1, real, imag);
+        store(real, bx, by, blockWidth, blockHeight, 2, width, max, samples);
+      }
+    }
+  }
+
+  // Correlates the source of a block with the kernel, one band in the real part and, unless
+  // imagBand is -1, another band in the imaginary part
+  private void filterBlock(int[][] rows, int bx, int by, int blockWidth, int blockHeight,
+                           int realBand, int imagBand, double[] real, double[] imag) {
+    int n = this.fftSize;
+    Arrays.fill(real, 0);
+    Arrays.fill(imag, 0);
+    int sourceHeight = blockHeight + this.size - 1;
+    int sourceWidth = blockWidth + this.size - 1;
+    for (int i = 0; i < sourceHeight; i++) {
+      int[] row = rows[by + i];
+      for (int j = 0, k = 3 * bx; j < sourceWidth; j++, k += 3) {
+        real[i * n + j] = row[k + realBand];
+        if (imagBand >= 0) {
+          imag[i * n + j] = row[k + imagBand];
+        }
+      }
+    }
+    transform(real, imag, false);
+    for (int i = 0; i < real.length; i++) {
+      double re = real[i] * this.kernelReal[i] - imag[i] * this.kernelImag[i];
+      double im = real[i] * this.kernelImag[i] + imag[i] * this.kernelReal[i];
+      real[i] = re;
+      imag[i] = im;
+    }
+    transform(real, imag, true);
+  }
+
+  // Rounds the filtered samples of one band of a block into the region
+  private void store(double[] filtered, int bx, int by, int blockWidth, int blockHeight, int band,
+                     int width, int max, int[] samples) {
+    int n = this.fftSize;
+    int shift = this.weights.getShift();
+    boolean fixedPoint = this.weights.isFixedPoint();
+    for (int i = 0; i < blockHeight; i++) {
+      for (int j = 0; j < blockWidth; j++) {
+        double value = filtered[i * n + j];
+        long rounded;
+        if (fixedPoint) {
+          // The exact sum is a whole number of 2^-shift, which the error of the transform is
+          // far too small to reach
+          rounded = KernelWeights.round(Math.round(Math.scalb(value, shift)), shift);
+        } else {
+          rounded = Math.round(value);
+        }
+        int index = 3 * ((by + i) * width + bx + j) + band;
+        samples[index] = (int) Math.max(0, Math.min(max, rounded));
+      }
+    }
+  }
+
+  // Two dimensional transform in place, the inverse one scaled by 1 / (n * n)
+  private void transform(double[] real, double[] imag, boolean inverse) {
+    int n = this.fftSize;
+    double[] columnReal = new double[n];
+    double[] columnImag = new double[n];
+    for (int i = 0; i < n; i++) {
+      transform(real, imag, i * n, inverse);
+    }
+    for (int j = 0; j < n; j++) {
+      for (int i = 0; i < n; i++) {
+        columnReal[i] = real[i * n + j];
+        columnImag[i] = imag[i * n + j];
+      }
+      transform(columnReal, columnImag, 0, inverse);
+      for (int i = 0; i < n; i++) {
+        real[i * n + j] = columnReal[i];
+        imag[i * n + j] = columnImag[i];
+      }
+    }
+    if (inverse) {
+      double scale = 1.0 / ((double) n * n);
+      for (int i = 0; i < real.length; i++) {
+        real[i] *= scale;
+        imag[i] *= scale;
+      }
+    }
+  }
+
+  // Iterative radix-2 transform of n samples starting at offset, in place
+  private void transform(double[] real, double[] imag, int offset, boolean inverse) {
+    int n = this.fftSize;
+    for (int i = 0; i < n; i++) {
+      int j = this.reversed[i];
+      if (i < j) {
+        int a = offset + i;
+        int b = offset + j;
+        double t = real[a];
+        real[a] = real[b];
+        real[b] = t;
+        t = imag[a];
+        imag[a] = imag[b];
+        imag[b] = t;
+      }
+    }
+    for (int length = 2; length <= n; length *= 2) {
+      int half = length / 2;
+      int step = n / length;
+      for (int start = 0; start < n; start += length) {
+        for (int k = 0; k < half; k++) {
+          double wr = this.cos[k * step];
+          double wi = inverse ? -this.sin[k * step] : this.sin[k * step];
+          int a = offset + start + k;
+          int b = a + half;
+          double tr = real[b] * wr - imag[b] * wi;
+          double ti = real[b] * wi + imag[b] * wr;
+          real[b] = real[a] - tr;
+          imag[b] = imag[a] - ti;
+          real[a] += tr;
+          imag[a] += ti;
+        }
+      }
+    }
+  }
+}
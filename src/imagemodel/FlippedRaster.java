@@ -0,0 +1,210 @@
+package imagemodel;
+
+/**
+ * This class represents a flipped view of another raster. It does not hold any pixels of its own,
+ * reads are remapped to the corresponding row and column of the source raster. The view is only
+ * turned into a raster of its own when it is written to.
+ */
+public class FlippedRaster implements RasterInterface {
+
+  private final RasterInterface source;
+  private final boolean horizontal;
+  private final boolean vertical;
+  // Contiguous copy of the view, created on the first write
+  private RasterInterface materialized;
+
+  private FlippedRaster(RasterInterface source, boolean horizontal, boolean vertical) {
+    this.source = source;
+    this.horizontal = horizontal;
+    this.vertical = vertical;
+  }
+
+  /**
+   * Returns a raster that shows the given raster flipped about the requested axes. Flipping a view
+   * again only changes the orientation of the view, and a view whose flips cancel out returns the
+   * raster it was created from.
+   *
+   * @param raster     the raster to flip
+   * @param horizontal true to flip about the y-axis
+   * @param vertical   true to flip about the x-axis
+   * @return a view of the raster, or the raster itself if no flip remains
+   */
+  public static RasterInterface flip(RasterInterface raster, boolean horizontal,
+                                     boolean vertical) {
+    if (raster instanceof FlippedRaster && ((FlippedRaster) raster).materialized == null) {
+      FlippedRaster view = (FlippedRaster) raster;
+      return flip(view.source, view.horizontal ^ horizontal, view.vertical ^ vertical);
+    }
+    if (!horizontal && !vertical) {
+      return raster;
+    }
+    return new FlippedRaster(raster, horizontal, vertical);
+  }
+
+  @Override
+  public int getWidth() {
+    return this.source.getWidth();
+  }
+
+  @Override
+  public int getHeight() {
+    return this.source.getHeight();
+  }
+
+  @Override
+  public int getSample(int row, int col, int band) {
+    if (this.materialized != null) {
+      return this.materialized.getSample(row, col, band);
+    }
+    return this.source.getSample(sourceRow(row), sourceCol(col), band);
+  }
+
+  @Override
+  public void readRow(int row, int[] dst) {
+    if (this.materialized != null) {
+      this.materialized.readRow(row, dst);
+      return;
+    }
+    this.source.readRow(sourceRow(row), dst);
+    if (this.horizontal) {
+      for (int l = 0, r = getWidth() - 1; l < r; l++, r--) {
+        int tmp = dst[l];
+        dst[l] = dst[r];
+        dst[r] = tmp;
+      }
+    }
+  }
+
+  @Override
+  public void readRow(int row, int col, int count, int[] dst) {
+    if (this.materialized != null) {
+      this.materialized.readRow(row, col, count, dst);
+      return;
+    }
+    this.source.readRow(sourceRow(row), this.horizontal ? getWidth() - col - count : col, count,
+            dst);
+    if (this.horizontal) {
+      for (int l = 0, r = count - 1; l < r; l++, r--) {
+        int tmp = dst[l];
+        dst[l] = dst[r];
+        dst[r] = tmp;
+      }
+    }
+  }
+
+  @Override
+  public void writeRow(int row, int[] src) {
+    materialize().writeRow(row, src);
+  }
+
+  @Override
+  public void readSamples(int row, int[] dst) {
+    if (this.materialized != null) {
+      this.materialized.readSamples(row, dst);
+      return;
+    }
+    this.source.readSamples(sourceRow(row), dst);
+    if (this.horizontal) {
+      reverseSamples(dst, getWidth());
+    }
+  }
+
+  @Override
+  public void readSamples(int row, int col, int count, int[] dst) {
+    if (this.materialized != null) {
+      this.materialized.readSamples(row, col, count, dst);
+      return;
+    }
+    this.source.readSamples(sourceRow(row), this.horizontal ? getWidth() - col - count : col,
+            count, dst);
+    if (this.horizontal) {
+      reverseSamples(dst, count);
+    }
+  }
+
+  @Override
+  public void writeSamples(int row, int[] src) {
+    materialize().writeSamples(row, src);
+  }
+
+  @Override
+  public void prepareForWrite() {
+    materialize().prepareForWrite();
+  }
+
+  @Override
+  public RasterInterface extractBand(int band) {
+    if (this.materialized != null) {
+      return this.materialized.extractBand(band);
+    }
+    return flip(this.source.extractBand(band), this.horizontal, this.vertical);
+  }
+
+  @Override
+  public RasterInterface createCompatible(int width, int height) {
+    return this.source.createCompatible(width, height);
+  }
+
+  @Override
+  public RasterInterface copy() {
+    if (this.materialized != null) {
+      return this.materialized.copy();
+    }
+    return copyOf(this);
+  }
+
+  @Override
+  public long estimatedBytes() {
+    return this.materialized == null ? 0 : this.materialized.estimatedBytes();
+  }
+
+  @Override
+  public boolean isOffHeap() {
+    return this.materialized == null ? this.source.isOffHeap() : this.materialized.isOffHeap();
+  }
+
+  @Override
+  public String describe() {
+    if (this.materialized != null) {
+      return this.materialized.describe();
+    }
+    return "flipped view of " + this.source.describe();
+  }
+
+  private int sourceRow(int row) {
+    return this.vertical ? getHeight() - 1 - row : row;
+  }
+
+  private int sourceCol(int col) {
+    return this.horizontal ? getWidth() - 1 - col : col;
+  }
+
+  // Reverses the order of the first count pixels of an array of interleaved samples
+  private static void reverseSamples(int[] samples, int count) {
+    for (int l = 0, r = 3 * (count - 1); l < r; l += 3, r -= 3) {
+      for (int c = 0; c < 3; c++) {
+        int tmp = samples[l + c];
+        samples[l + c] = samples[r + c];
+        samples[r + c] = tmp;
+      }
+    }
+  }
+
+  private RasterInterface materialize() {
+    if (this.materialized == null) {
+      this.materialized = copyOf(this);
+    }
+    return this.materialized;
+  }
+
+  // Copies the rows of the view, in their flipped order, into a raster of the source's kind
+  private static RasterInterface copyOf(FlippedRaster view) {
+    RasterInterface copy = view.source.createCompatible(view.getWidth(), view.getHeight());
+    int[] row = new int[3 * view.getWidth()];
+    for (int i = 0; i < view.getHeight(); i++) {
+      view.readSamples(i, row);
+      copy.writeSamples(i, row);
+    }
+    return copy;
+  }
+}
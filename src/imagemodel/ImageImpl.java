@@ -1,12 +1,14 @@
 package imagemodel;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
-import java.util.function.Function;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
 import imagecontroller.ImageSaver;
 import imagecontroller.savers.JPEGSaver;
@@ -17,9 +19,25 @@ import imagecontroller.savers.PPMSaver;
  * This class represents the model for the Image Processing application. It is responsible for
  * storing the image data and performing the operations on the image data. It implements the
  * ImageInterface.
+ * The pixels are kept in a RasterInterface, by default a PackedRaster that stores every pixel as
+ * a single 0xRRGGBB int. All the operations read and write whole rows of the raster and never
+ * create pixel objects. The list based view returned by getImageArray is only built on request.
+ * Flipped images share the raster of the original image through a FlippedRaster view, and copies
+ * share the raster itself. An image whose raster is shared copies it before it is modified.
+ * Filters and point operations of a TiledRaster image are lazy: the result computes each of its
+ * tiles from this image the first time the tile is read.
  */
 public class ImageImpl implements ImageInterface {
-  private final List<List<PixelInterface>> imageArray;
+  private static final int DEFAULT_MAX_VALUE = 255;
+  // The fewest rows a box blur sums up at a time
+  private static final int BOX_BLUR_BAND_ROWS = 256;
+  // Components that are a single channel of the image, mapped to the index of the channel
+  private static final Map<String, Integer> BANDS = Map.of(
+          "red-component", 0, "green-component", 1, "blue-component", 2);
+
+  private RasterInterface raster;
+  // True when another image may read the same raster, in which case it is copied before a write
+  private boolean shared;
   // Image Saver Classes
   private final Map<String, ImageSaver> imageSaverMap = new HashMap<>() {
     {
@@ -36,23 +54,30 @@ public class ImageImpl implements ImageInterface {
     }
   };
   // Function map of all the operations that retrieve a particular component from the pixel
-  private final Map<String, Function<PixelInterface, Integer>> functionMap = new HashMap<>() {
+  private final Map<String, ComponentFunction> functionMap = new HashMap<>() {
     {
-      put("red-component", PixelInterface::getRed);
-      put("green-component", PixelInterface::getGreen);
-      put("blue-component", PixelInterface::getBlue);
-      put("value-component", PixelInterface::getValue);
-      put("intensity-component", PixelInterface::getIntensity);
-      put("luma-component", PixelInterface::getLuma);
+      put("red-component", (r, g, b) -> r);
+      put("green-component", (r, g, b) -> g);
+      put("blue-component", (r, g, b) -> b);
+      put("value-component", RGBPixel::value);
+      put("intensity-component", RGBPixel::intensity);
+      put("luma-component", RGBPixel::luma);
     }
   };
-  private int maxColorValue;
+  // Luma as a color transform, whose tables compute it with the same rounding as RGBPixel.luma
+  private static final ColorTransform LUMA = new ColorTransform(List.of(
+          List.of(0.2126, 0.7152, 0.0722), List.of(0.2126, 0.7152, 0.0722),
+          List.of(0.2126, 0.7152, 0.0722)));
+  private final int maxColorValue;
+  // Compatibility view of the raster, built on the first call to getImageArray
+  private List<List<PixelInterface>> imageArray;
 
   /**
    * Construct a new Image with an empty image array.
    */
   public ImageImpl() {
-    imageArray = new ArrayList<>();
+    this.raster = new PackedRaster(0, 0);
+    this.maxColorValue = DEFAULT_MAX_VALUE;
   }
 
   /**
@@ -78,9 +103,14 @@ public class ImageImpl implements ImageInterface {
       }
     }
 
-    this.imageArray = imageArray;
+    this.raster = new PackedRaster(width, imageArray.size());
+    int[] row = new int[3 * width];
+    for (int i = 0; i < imageArray.size(); i++) {
+      fillSamples(imageArray.get(i), row);
+      this.raster.writeSamples(i, row);
+    }
 
-    this.maxColorValue = 255;
+    this.maxColorValue = DEFAULT_MAX_VALUE;
   }
 
   // Parameterized Constructor
@@ -101,36 +131,107 @@ public class ImageImpl implements ImageInterface {
       throw new IllegalArgumentException("The image array is not of expected size");
     }
 
-    // Initialize the image array
-    this.imageArray = new ArrayList<>();
-    int index = 0;
+    // Initialize the raster
+    this.raster = new PackedRaster(width, height);
+    int[] row = new int[3 * width];
     for (int i = 0; i < height; i++) {
-      List<PixelInterface> row = new ArrayList<>();
-      for (int j = 0; j < width; j++) {
-        row.add(pixelsList.get(index));
-        index++;
-      }
-      this.imageArray.add(row);
+      fillSamples(pixelsList.subList(i * width, (i + 1) * width), row);
+      this.raster.writeSamples(i, row);
+    }
+    this.maxColorValue = maxColorValue;
+  }
+
+  /**
+   * Construct a new Image around the given raster. The raster is not copied.
+   *
+   * @param raster        the raster holding the pixels of the image
+   * @param maxColorValue the maximum value of a color component in the image
+   */
+  public ImageImpl(RasterInterface raster, int maxColorValue) {
+    if (raster == null) {
+      throw new IllegalArgumentException("The raster is null");
     }
+    this.raster = raster;
     this.maxColorValue = maxColorValue;
   }
 
   /**
    * Construct a new Image with the given imageInterface object.
-   * This constructor is used to create a deep copy of the given image.
+   * The copy shares the pixels of an ImageImpl until either of the two images is modified, at
+   * which point the modified image copies the pixels first.
    *
    * @param image the image to be copied
    */
   public ImageImpl(ImageInterface image) {
-    this.imageArray = new ArrayList<>();
-    for (int i = 0; i < image.getSize().get(0); i++) {
-      List<PixelInterface> row = new ArrayList<>();
-      for (int j = 0; j < image.getSize().get(1); j++) {
-        row.add(image.getImageArray().get(i).get(j));
+    if (image instanceof ImageImpl) {
+      ImageImpl other = (ImageImpl) image;
+      this.raster = other.raster;
+      this.shared = true;
+      other.shared = true;
+    } else {
+      int width = image.getWidth();
+      this.raster = new PackedRaster(width, image.getHeight());
+      int[] row = new int[3 * width];
+      for (int i = 0; i < image.getHeight(); i++) {
+        image.readSamples(i, row);
+        this.raster.writeSamples(i, row);
+      }
+    }
+    this.maxColorValue = image.getMaxValue();
+  }
+
+  /**
+   * Construct a new Image by combining three greyscale images. The red channel of the new image is
+   * taken from the first image, the green channel from the second and the blue channel from the
+   * third. Each channel is stored in its own plane. Images with more than 8 bits per channel
+   * must all have the same maximum value.
+   *
+   * @param red   greyscale image holding the red channel
+   * @param green greyscale image holding the green channel
+   * @param blue  greyscale image holding the blue channel
+   * @throws IllegalArgumentException if the images differ in size or are not greyscale
+   */
+  public ImageImpl(ImageInterface red, ImageInterface green, ImageInterface blue)
+          throws IllegalArgumentException {
+    if (red == null || green == null || blue == null) {
+      throw new IllegalArgumentException("One of the images is null");
+    }
+    int height = red.getHeight();
+    int width = red.getWidth();
+    if (green.getWidth() != width || blue.getWidth() != width
+            || green.getHeight() != height || blue.getHeight() != height) {
+      throw new IllegalArgumentException("3 images must be of the same size");
+    }
+    int maxValue = Math.max(red.getMaxValue(), Math.max(green.getMaxValue(),
+            blue.getMaxValue()));
+    if (maxValue <= DEFAULT_MAX_VALUE) {
+      this.raster = new PlanarRaster(width, height, greyPlane(red, 0), greyPlane(green, 1),
+              greyPlane(blue, 2));
+      this.maxColorValue = DEFAULT_MAX_VALUE;
+      return;
+    }
+
+    if (red.getMaxValue() != maxValue || green.getMaxValue() != maxValue
+            || blue.getMaxValue() != maxValue) {
+      throw new IllegalArgumentException("3 images must have the same maximum value");
+    }
+    ImageInterface[] channels = {red, green, blue};
+    int[] samples = new int[3 * width];
+    int[] combined = new int[3 * width];
+    this.raster = new ShortRaster(width, height, maxValue);
+    for (int i = 0; i < height; i++) {
+      for (int c = 0; c < 3; c++) {
+        channels[c].readSamples(i, samples);
+        for (int k = 0; k < samples.length; k += 3) {
+          if (samples[k] != samples[k + 1] || samples[k] != samples[k + 2]) {
+            throw new IllegalArgumentException("Image provided was not greyscale");
+          }
+          combined[k + c] = samples[k];
+        }
       }
-      this.imageArray.add(row);
+      this.raster.writeSamples(i, combined);
     }
-    this.maxColorValue = 255;
+    this.maxColorValue = maxValue;
   }
 
   @Override
@@ -140,20 +241,13 @@ public class ImageImpl implements ImageInterface {
     // 1. The image array is not empty
     // 2. The image array is not null
     // 3. The image array is not a single column
-    if (this.imageArray.get(0).size() == 1) {
+    if (this.raster.getWidth() == 1) {
       // It would be the same image even when trying to make a flip
       return this;
     }
 
-    List<List<PixelInterface>> flippedImageArray = new ArrayList<>();
-    for (int i = 0; i < this.imageArray.size(); i++) {
-      ArrayList<PixelInterface> row = new ArrayList<>();
-      for (int j = this.imageArray.get(i).size() - 1; j >= 0; j--) {
-        row.add(this.imageArray.get(i).get(j));
-      }
-      flippedImageArray.add(row);
-    }
-    return new ImageImpl(flippedImageArray);
+    // The flip is a view of this image's raster, no pixels are copied
+    return shareRaster(FlippedRaster.flip(this.raster, true, false));
   }
 
   @Override
@@ -163,58 +257,62 @@ public class ImageImpl implements ImageInterface {
     // 1. The image array is not empty
     // 2. The image array is not null
     // 3. The image array is not a single row
-    if (this.imageArray.size() == 1) {
+    if (this.raster.getHeight() == 1) {
       // It would be the same image even when trying to make a flip
       return this;
     }
 
-    List<List<PixelInterface>> flippedImageArray = new ArrayList<>();
-    for (int i = this.imageArray.size() - 1; i >= 0; i--) {
-      flippedImageArray.add(this.imageArray.get(i));
-    }
-    return new ImageImpl(flippedImageArray);
+    // The flip is a view of this image's raster, no pixels are copied
+    return shareRaster(FlippedRaster.flip(this.raster, false, true));
   }
 
   @Override
   public ImageInterface brighten(int value) {
-    int n = this.imageArray.size();
-    int m = this.imageArray.get(0).size();
-
-    List<List<PixelInterface>> newImageArray = new ArrayList<>();
-    for (int i = 0; i < n; i++) {
-      List<PixelInterface> row = new ArrayList<>();
-      for (int j = 0; j < m; j++) {
-        int r = makeValueAcceptable(this.imageArray.get(i).get(j).getRed() + value);
-        int g = makeValueAcceptable(this.imageArray.get(i).get(j).getGreen() + value);
-        int b = makeValueAcceptable(this.imageArray.get(i).get(j).getBlue() + value);
-        row.add(new RGBPixel(r, g, b));
-      }
-      newImageArray.add(row);
-    }
-    return new ImageImpl(newImageArray);
+    return applyRowOperation(brightenOperation(value));
   }
 
   @Override
   public ImageInterface greyscale(String color) throws IllegalArgumentException {
-    int n = this.imageArray.size();
-    int m = this.imageArray.get(0).size();
+    int n = this.raster.getHeight();
+    int m = this.raster.getWidth();
 
-    if (!functionMap.containsKey(color)) {
-      throw new IllegalArgumentException("Illegal color component for RGB image + "
-              + color + "\n");
+    RowOperation operation = componentOperation(color);
+
+    // Tiled images stay lazy, so only the tiles that are read are computed
+    if (this.raster instanceof TiledRaster) {
+      return applyRowOperation(operation);
     }
 
-    List<List<PixelInterface>> greyImageArray = new ArrayList<>();
-    for (int i = 0; i < n; i++) {
-      List<PixelInterface> row = new ArrayList<>();
-      for (int j = 0; j < m; j++) {
-        row.add(new RGBPixel(makeValueAcceptable(
-                this.functionMap.get(color).apply(this.imageArray.get(i).get(j))
-        )));
-      }
-      greyImageArray.add(row);
+    // A single channel is copied as a whole plane
+    Integer band = BANDS.get(color);
+    if (band != null) {
+      return new ImageImpl(this.raster.extractBand(band), this.maxColorValue);
+    }
+
+    // Deeper images keep the depth of their raster
+    if (this.maxColorValue > DEFAULT_MAX_VALUE) {
+      return applyRowOperation(operation);
     }
-    return new ImageImpl(greyImageArray);
+
+    // Any other component is computed into a single plane shared by all three channels
+    byte[] grey = new byte[n * m];
+    RasterInterface source = this.raster;
+    ParallelExecutor.forEachRowRange(n, (start, end) -> {
+      int[] row = new int[3 * m];
+      for (int i = start; i < end; i++) {
+        source.readSamples(i, row);
+        operation.apply(row);
+        for (int j = 0, k = 0; j < m; j++, k += 3) {
+          grey[i * m + j] = (byte) row[k];
+        }
+      }
+    });
+    return new ImageImpl(new PlanarRaster(m, n, grey), this.maxColorValue);
+  }
+
+  @Override
+  public ImageInterface applyLut(ChannelLut lut) throws IllegalArgumentException {
+    return applyRowOperation(lutOperation(lut));
   }
 
   @Override
@@ -224,28 +322,112 @@ public class ImageImpl implements ImageInterface {
 
   @Override
   public List<ImageInterface> rgbSplit() {
+    // Rasters that keep the channels of a pixel together read all three in one pass
     List<ImageInterface> imgSplit = new ArrayList<>();
-    imgSplit.add(greyscale("red-component"));
-    imgSplit.add(greyscale("green-component"));
-    imgSplit.add(greyscale("blue-component"));
+    for (RasterInterface band : this.raster.splitBands()) {
+      // The channels of a tiled image are computed from its tiles when they are read
+      imgSplit.add(this.raster instanceof TiledRaster ? shareRaster(band)
+              : new ImageImpl(band, this.maxColorValue));
+    }
     return imgSplit;
   }
 
   @Override
   public List<List<PixelInterface>> getImageArray() {
+    if (this.imageArray == null) {
+      this.imageArray = new ArrayView();
+    }
     return this.imageArray;
   }
 
   @Override
   public List<Integer> getSize() {
     List<Integer> sizeArr = new ArrayList<>();
-    sizeArr.add(this.imageArray.size());
-    sizeArr.add(this.imageArray.get(0).size());
+    sizeArr.add(this.raster.getHeight());
+    sizeArr.add(this.raster.getWidth());
     return sizeArr;
   }
 
+  @Override
+  public long estimatedBytes() {
+    return this.raster.estimatedBytes();
+  }
+
+  @Override
+  public int getWidth() {
+    return this.raster.getWidth();
+  }
+
+  @Override
+  public int getHeight() {
+    return this.raster.getHeight();
+  }
+
+  @Override
+  public void readRow(int y, int[] dst) throws IllegalArgumentException {
+    checkRegion(0, y, this.raster.getWidth(), 1, dst);
+    this.raster.readRow(y, dst);
+  }
+
+  @Override
+  public void readSamples(int y, int[] dst) throws IllegalArgumentException {
+    checkRegion(0, y, this.raster.getWidth(), 1, dst);
+    if (dst.length < 3 * this.raster.getWidth()) {
+      throw new IllegalArgumentException("The sample array is too small for the row");
+    }
+    this.raster.readSamples(y, dst);
+  }
+
+  @Override
+  public int getMaxValue() {
+    return this.maxColorValue;
+  }
+
+  @Override
+  public void readRegion(int x, int y, int width, int height, int[] dst)
+          throws IllegalArgumentException {
+    checkRegion(x, y, width, height, dst);
+    int[] row = new int[width];
+    for (int r = 0; r < height; r++) {
+      this.raster.readRow(y + r, x, width, row);
+      System.arraycopy(row, 0, dst, r * width, width);
+    }
+  }
+
+  @Override
+  public void writeRow(int y, int[] src) throws IllegalArgumentException {
+    checkRegion(0, y, this.raster.getWidth(), 1, src);
+    prepareForWrite();
+    this.raster.writeRow(y, src);
+  }
+
+  @Override
+  public void writeRegion(int x, int y, int width, int height, int[] src)
+          throws IllegalArgumentException {
+    checkRegion(x, y, width, height, src);
+    prepareForWrite();
+    int[] row = new int[this.raster.getWidth()];
+    for (int r = 0; r < height; r++) {
+      if (width != row.length) {
+        this.raster.readRow(y + r, row);
+      }
+      System.arraycopy(src, r * width, row, x, width);
+      this.raster.writeRow(y + r, row);
+    }
+  }
+
+  @Override
+  public Spliterator<int[]> rowSpliterator() {
+    return new RowSpliterator(this.raster, 0, this.raster.getHeight());
+  }
+
   @Override
   public ImageInterface blur(Kernel blur) {
+    return blur(blur, EdgeMode.ZERO);
+  }
+
+  @Override
+  public ImageInterface blur(Kernel blur, EdgeMode edgeMode) {
 
     if (blur == null) {
       throw new IllegalArgumentException("Filter is null");
@@ -261,11 +443,25 @@ public class ImageImpl implements ImageInterface {
     }
 
 
-    return this.applyFilter(blur);
+    return this.applyFilter(blur, edgeMode);
+  }
+
+  @Override
+  public ImageInterface convolve(Kernel kernel, EdgeMode edgeMode)
+          throws IllegalArgumentException {
+    if (kernel == null) {
+      throw new IllegalArgumentException("Filter is null");
+    }
+    return this.applyFilter(kernel, edgeMode);
   }
 
   @Override
   public ImageInterface sharpen(Kernel sharpen) {
+    return sharpen(sharpen, EdgeMode.ZERO);
+  }
+
+  @Override
+  public ImageInterface sharpen(Kernel sharpen, EdgeMode edgeMode) {
 
     if (sharpen == null) {
       throw new IllegalArgumentException("Filter is null");
@@ -280,7 +476,81 @@ public class ImageImpl implements ImageInterface {
       }
     }
 
-    return this.applyFilter(sharpen);
+    return this.applyFilter(sharpen, edgeMode);
+  }
+
+  @Override
+  public ImageInterface boxBlur(int radius) throws IllegalArgumentException {
+    if (radius < 0) {
+      throw new IllegalArgumentException("The radius cannot be negative");
+    }
+    int n = this.raster.getHeight();
+    int m = this.raster.getWidth();
+    RasterInterface result = this.raster.createCompatible(m, n);
+    // Sum up the image a band of rows at a time, so the table only holds the rows the windows of
+    // the band reach. Bands at least twice the radius keep the overlap from doubling the work.
+    int bandRows = (int) Math.min(n, Math.max(BOX_BLUR_BAND_ROWS, 2L * radius + 1));
+    for (int band = 0; band < n; band += bandRows) {
+      int first = band;
+      int last = Math.min(n, band + bandRows);
+      IntegralImage integral = new IntegralImage(this, Math.max(0, first - radius),
+              (int) Math.min(n, (long) last + radius));
+      ParallelExecutor.forEachRowRange(last - first, (start, end) -> {
+        int[] row = new int[3 * m];
+        for (int i = first + start; i < first + end; i++) {
+          integral.meanRow(i, radius, row);
+          result.writeSamples(i, row);
+        }
+      });
+    }
+    return new ImageImpl(result, this.maxColorValue);
+  }
+
+  @Override
+  public ImageInterface gaussianBlur(double sigma) throws IllegalArgumentException {
+    RecursiveGaussian gaussian = new RecursiveGaussian(sigma);
+    int n = this.raster.getHeight();
+    int m = this.raster.getWidth();
+    float[][] planes = new float[3][Math.multiplyExact(m, n)];
+
+    // Rows in parallel bands, each channel of a row filtered in place
+    ParallelExecutor.forEachRowRange(n, (start, end) -> {
+      int[] samples = new int[3 * m];
+      double[] line = new double[3 * m];
+      for (int i = start; i < end; i++) {
+        this.raster.readSamples(i, samples);
+        for (int k = 0; k < line.length; k++) {
+          line[k] = samples[k];
+        }
+        for (int band = 0; band < 3; band++) {
+          gaussian.filter(line, band, 3, m);
+          for (int j = 0; j < m; j++) {
+            planes[band][i * m + j] = (float) line[3 * j + band];
+          }
+        }
+      }
+    });
+
+    // Columns in parallel bands
+    ParallelExecutor.forEachRowRange(m, (start, end) -> {
+      for (float[] plane : planes) {
+        gaussian.filterColumns(plane, m, n, start, end);
+      }
+    });
+
+    RasterInterface result = this.raster.createCompatible(m, n);
+    ParallelExecutor.forEachRowRange(n, (start, end) -> {
+      int[] samples = new int[3 * m];
+      for (int i = start; i < end; i++) {
+        for (int j = 0, k = 0; j < m; j++, k += 3) {
+          samples[k] = makeValueAcceptable(Math.round(planes[0][i * m + j]));
+          samples[k + 1] = makeValueAcceptable(Math.round(planes[1][i * m + j]));
+          samples[k + 2] = makeValueAcceptable(Math.round(planes[2][i * m + j]));
+        }
+        result.writeSamples(i, samples);
+      }
+    });
+    return new ImageImpl(result, this.maxColorValue);
   }
 
   @Override
@@ -291,308 +561,665 @@ public class ImageImpl implements ImageInterface {
 
   @Override
   public ImageInterface dither() {
-    List<List<Double>> greyscaleTransform = new ArrayList<>();
-    greyscaleTransform.add(Arrays.asList(0.2126, 0.7152, 0.0722));
-    greyscaleTransform.add(Arrays.asList(0.2126, 0.7152, 0.0722));
-    greyscaleTransform.add(Arrays.asList(0.2126, 0.7152, 0.0722));
+    // Greyscale coefficients applied to every pixel before thresholding
+    final double lumaR = 0.2126;
+    final double lumaG = 0.7152;
+    final double lumaB = 0.0722;
+
+    int n = this.raster.getHeight();
+    int m = this.raster.getWidth();
+
+    // Only the current and the next row receive error, so two rows of output are kept at a time
+    int[] samples = new int[3 * m];
+    int[] greyRow = new int[m];
+    int[] nextGreyRow = new int[m];
+    int[] pixelRow = new int[m];
+    int[] nextPixelRow = new int[m];
+
+    RasterInterface result = this.raster.createCompatible(m, n);
+    // Values from the middle of the range upwards become white
+    int middle = (this.maxColorValue + 1) / 2;
+    readLumaRow(0, samples, nextGreyRow, lumaR, lumaG, lumaB);
+    threshold(nextGreyRow, nextPixelRow, middle, this.maxColorValue);
+
+    for (int i = 0; i < n; i++) {
+      int[] tmp = greyRow;
+      greyRow = nextGreyRow;
+      nextGreyRow = tmp;
+      tmp = pixelRow;
+      pixelRow = nextPixelRow;
+      nextPixelRow = tmp;
+      if (i + 1 < n) {
+        readLumaRow(i + 1, samples, nextGreyRow, lumaR, lumaG, lumaB);
+        threshold(nextGreyRow, nextPixelRow, middle, this.maxColorValue);
+      }
+
+      // Propagate error to neighboring pixels. Skip first row, last row, first and last column
+      if (i > 0 && i < n - 1) {
+        for (int j = 1; j < m - 1; j++) {
+          double error = greyRow[j] - (greyRow[j] < middle ? 0 : this.maxColorValue);
+
+          // add (7/16 * error) to pixel on the right (i, j + 1)
+          pixelRow[j + 1] = makeValueAcceptable((int) ((0.4375) * error + pixelRow[j + 1]));
 
-    // Create a grayscale version of the current image
-    ImageInterface grayscaleImage = this.greyscale(new ColorTransform(greyscaleTransform));
+          // add (3/16 * error) to pixel on the next-row-left (i+1,j-1)
+          nextPixelRow[j - 1] = makeValueAcceptable(
+                  (int) ((0.1875) * error + nextPixelRow[j - 1]));
 
-    List<List<PixelInterface>> greyScalePixelArray = grayscaleImage.getImageArray();
+          // add (5/16 * error) to pixel below in next row (i+1,j)
+          nextPixelRow[j] = makeValueAcceptable((int) ((0.3125) * error + nextPixelRow[j]));
 
-    // Create a new pixel array with the same dimensions as the current image
-    List<List<PixelInterface>> pixelArray = new ArrayList<>();
+          // add (1/16 * error) to pixel on the next-row-right (i+1,j+1)
+          nextPixelRow[j + 1] = makeValueAcceptable(
+                  (int) ((0.0625) * error + nextPixelRow[j + 1]));
+        }
+      }
 
-    // Loop through each pixel in the image and clone it
-    for (int i = 0; i < grayscaleImage.getImageArray().size(); i++) {
-      List<PixelInterface> row = new ArrayList<>();
-      for (int j = 0; j < grayscaleImage.getImageArray().get(0).size(); j++) {
-        PixelInterface pixel = grayscaleImage.getImageArray().get(i).get(j);
-        row.add(new RGBPixel(pixel.getRed(), pixel.getGreen(), pixel.getBlue()));
+      for (int j = 0; j < m; j++) {
+        samples[3 * j] = pixelRow[j];
+        samples[3 * j + 1] = pixelRow[j];
+        samples[3 * j + 2] = pixelRow[j];
       }
-      pixelArray.add(row);
+      result.writeSamples(i, samples);
     }
 
-    // Make Error matrix
-    List<List<Double>> errorMatrix = new ArrayList<>();
-    for (int i = 0; i < grayscaleImage.getImageArray().size(); i++) {
-      List<Double> row = new ArrayList<>();
-      for (int j = 0; j < grayscaleImage.getImageArray().get(0).size(); j++) {
-        row.add(0.0);
+    return new ImageImpl(result, this.maxColorValue);
+  }
+
+  @Override
+  public ImageInterface mosaic(int numOfSeeds) {
+    int height = this.raster.getHeight();
+    int width = this.raster.getWidth();
+
+    int[][] seeds = generateRandomSeeds(numOfSeeds, width, height);
+
+    // Assign every pixel to its closest seed and accumulate the colors of each cluster.
+    // Without any seeds the whole image forms a single cluster.
+    int clusters = Math.max(1, seeds.length);
+    int[] clusterOf = new int[width * height];
+    long[] clusterSums = new long[3 * clusters];
+    long[] clusterSizes = new long[clusters];
+    int[] row = new int[3 * width];
+    for (int y = 0; y < height; y++) {
+      this.raster.readSamples(y, row);
+      for (int x = 0; x < width; x++) {
+        int seed = findClosestSeed(x, y, seeds);
+        clusterOf[y * width + x] = seed;
+        clusterSums[3 * seed] += row[3 * x];
+        clusterSums[3 * seed + 1] += row[3 * x + 1];
+        clusterSums[3 * seed + 2] += row[3 * x + 2];
+        clusterSizes[seed]++;
+      }
+    }
+
+    // Paint every pixel with the average color of its cluster
+    RasterInterface mosaicImage = this.raster.createCompatible(width, height);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int seed = clusterOf[y * width + x];
+        for (int c = 0; c < 3; c++) {
+          row[3 * x + c] = (int) (clusterSums[3 * seed + c] / clusterSizes[seed]);
+        }
+      }
+      mosaicImage.writeSamples(y, row);
+    }
+
+    return new ImageImpl(mosaicImage, this.maxColorValue);
+  }
+
+  //generate random seeds list for mosaic operation.
+  private int[][] generateRandomSeeds(int numSeeds, int width, int height) {
+    int[][] seeds = new int[Math.max(0, numSeeds)][];
+    Random random = new Random(200);
+    for (int i = 0; i < seeds.length; i++) {
+      int x = random.nextInt(width);
+      int y = random.nextInt(height);
+      seeds[i] = new int[]{x, y};
+    }
+    return seeds;
+  }
+
+  //find the index of the closest seed for the given pixel for mosaic operation.
+  private int findClosestSeed(int x, int y, int[][] seeds) {
+    long minDistance = Long.MAX_VALUE;
+    int closestSeed = 0;
+    for (int s = 0; s < seeds.length; s++) {
+      long dx = seeds[s][0] - x;
+      long dy = seeds[s][1] - y;
+      long distance = dx * dx + dy * dy;
+      if (distance < minDistance) {
+        minDistance = distance;
+        closestSeed = s;
       }
-      errorMatrix.add(row);
     }
+    return closestSeed;
+  }
 
-    for (int i = 0; i < grayscaleImage.getImageArray().size(); i++) {
-      for (int j = 0; j < grayscaleImage.getImageArray().get(0).size(); j++) {
+  private ImageInterface applyFilter(Kernel kernel, EdgeMode edgeMode)
+          throws IllegalArgumentException {
+    if (edgeMode == null) {
+      throw new IllegalArgumentException("Edge mode is null");
+    }
+    RasterInterface source = this.raster;
+    RegionFilter filter;
+    if (kernel.usesFourierTransform() && (!kernel.isFixedPoint()
+            || kernel.getFftConvolver().isExact(this.maxColorValue))) {
+      // Large kernels go through the Fourier transform, a block of rows at a time, unless the
+      // exact sums of a fixed point kernel could be lost to its rounding error
+      FftConvolver convolver = kernel.getFftConvolver();
+      filter = (x, y, width, height, sink) -> filterRegionFourier(source, x, y, width, height,
+              convolver, kernel.getSize() / 2, edgeMode, sink);
+    } else if (kernel.isSeparable()) {
+      KernelWeights columnWeights = kernel.getColumnWeights();
+      KernelWeights rowWeights = kernel.getRowWeights();
+      filter = (x, y, width, height, sink) -> filterRegionSeparable(source, x, y, width, height,
+              columnWeights, rowWeights, edgeMode, sink);
+    } else {
+      KernelWeights weights = kernel.getWeights();
+      int size = kernel.getSize();
+      filter = (x, y, width, height, sink) -> filterRegion(source, x, y, width, height,
+              weights, size, edgeMode, sink);
+    }
 
-        // Get value of pixel at (i, j)
-        int pixelValue = greyScalePixelArray.get(i).get(j).getRed();
-        int newPixelValue = 0;
+    int n = this.raster.getHeight();
+    int m = this.raster.getWidth();
+    RasterInterface result = this.raster.createCompatible(m, n);
+    if (result instanceof TiledRaster) {
+      // Every tile of the result is filtered when it is first read
+      return shareRaster(new TiledRaster(m, n, (x, y, width, height, samples) ->
+              filter.filter(x, y, width, height, (i, row) ->
+                      System.arraycopy(row, 0, samples, 3 * i * width, row.length))));
+    }
 
-        // Set pixel at (i, j) to black or white depending on value
-        if (pixelValue < 128) {
-          newPixelValue = 0;
+    // Bands of rows are filtered in parallel. Each band streams through its rows, writing every
+    // row of the result as soon as it is filtered. Every pixel is computed in the same way as on
+    // a single thread, so the result does not depend on the bands.
+    ParallelExecutor.forEachRowRange(n, (start, end) -> filter.filter(0, start, m, end - start,
+            (i, row) -> result.writeSamples(start + i, row)));
+    return new ImageImpl(result, this.maxColorValue);
+  }
+
+  // Filters a region of the source, handing every row to the sink as soon as it is filtered.
+  // The kernel slides down a window of size padded source rows, so each row is read once.
+  private void filterRegion(RasterInterface source, int x, int y, int width, int height,
+                            KernelWeights weights, int size, EdgeMode edgeMode, RowSink sink) {
+    RowWindow rows = new RowWindow(source, x, width, size / 2, edgeMode);
+    boolean fixedPoint = weights.isFixedPoint();
+    boolean rowRuns = PixelLoops.usesRowRuns();
+    int[] out = new int[3 * width];
+    double[] sums = fixedPoint ? null : new double[3 * width];
+    long[] fixedSums = fixedPoint ? new long[3 * width] : null;
+    for (int i = 0; i < height; i++) {
+      int[][] window = rows.moveTo(y + i);
+      if (rowRuns) {
+        // A whole row of sums is accumulated one tap at a time
+        if (fixedPoint) {
+          Arrays.fill(fixedSums, 0);
+          for (int fi = 0; fi < size; fi++) {
+            PixelLoops.addTaps(fixedSums, window[fi], weights.scaled(), fi * size, size);
+          }
+          PixelLoops.store(fixedSums, weights.getShift(), out, 0, this.maxColorValue);
         } else {
-          newPixelValue = 255;
+          Arrays.fill(sums, 0);
+          for (int fi = 0; fi < size; fi++) {
+            PixelLoops.addTaps(sums, window[fi], weights.values(), fi * size, size);
+          }
+          PixelLoops.store(sums, out, 0, this.maxColorValue);
         }
+      } else {
+        for (int j = 0; j < width; j++) {
+          if (fixedPoint) {
+            filterPixelFixed(j, window, weights.scaled(), weights.getShift(), size, out, 3 * j);
+          } else {
+            filterPixel(j, window, weights.values(), size, out, 3 * j);
+          }
+        }
+      }
+      sink.accept(i, out);
+    }
+  }
 
-        double error = pixelValue - newPixelValue;
-
-        PixelInterface newPixel = new RGBPixel(newPixelValue, newPixelValue, newPixelValue);
-        pixelArray.get(i).set(j, newPixel);
+  // Filters a region of the source with a separable kernel. Every source row is filtered
+  // horizontally as it enters a ring of size filtered rows, and each row of the result combines
+  // the filtered rows of the ring vertically as soon as all of them are there.
+  private void filterRegionSeparable(RasterInterface source, int x, int y, int width, int height,
+                                     KernelWeights columnWeights, KernelWeights rowWeights,
+                                     EdgeMode edgeMode, RowSink sink) {
+    if (columnWeights.isFixedPoint() && rowWeights.isFixedPoint()) {
+      filterRegionSeparableFixed(source, x, y, width, height, columnWeights, rowWeights, edgeMode,
+              sink);
+      return;
+    }
+    double[] column = columnWeights.values();
+    double[] row = rowWeights.values();
+    int size = row.length;
+    int cVal = size / 2;
+    RowWindow reader = new RowWindow(source, x, width, cVal, edgeMode);
+    int[] sourceRow = new int[reader.getRowLength()];
+    double[][] filteredRows = new double[size][3 * width];
+    double[] sums = new double[3 * width];
+    int[] out = new int[3 * width];
+
+    boolean rowRuns = PixelLoops.usesRowRuns();
+    for (int r = 0; r < height + 2 * cVal; r++) {
+      // Horizontal pass
+      reader.readRow(y - cVal + r, sourceRow);
+      double[] filtered = filteredRows[r % size];
+      if (rowRuns) {
+        Arrays.fill(filtered, 0);
+        PixelLoops.addTaps(filtered, sourceRow, row, 0, size);
+      } else {
+        for (int k = 0; k < filtered.length; k++) {
+          double sum = 0;
+          for (int fj = 0; fj < size; fj++) {
+            sum += row[fj] * sourceRow[k + 3 * fj];
+          }
+          filtered[k] = sum;
+        }
+      }
+      if (r < size - 1) {
+        continue;
+      }
 
-        // Update the error matrix
-        errorMatrix.get(i).set(j, error);
+      // Vertical pass, over the filtered rows from r - size + 1 to r
+      int i = r - size + 1;
+      if (rowRuns) {
+        Arrays.fill(sums, 0);
+        for (int fi = 0; fi < size; fi++) {
+          PixelLoops.addScaled(sums, filteredRows[(i + fi) % size], column[fi]);
+        }
+        PixelLoops.store(sums, out, 0, this.maxColorValue);
+      } else {
+        for (int k = 0; k < out.length; k++) {
+          double sum = 0;
+          for (int fi = 0; fi < size; fi++) {
+            sum += column[fi] * filteredRows[(i + fi) % size][k];
+          }
+          out[k] = makeValueAcceptable((int) Math.round(sum));
+        }
       }
+      sink.accept(i, out);
     }
+  }
 
-    // Perform the error diffusion algorithm
-    for (int i = 0; i < pixelArray.size(); i++) {
-      for (int j = 0; j < pixelArray.get(0).size(); j++) {
-        // Skip first column, first row, last column and last row
-        if (i == 0 || j == 0 || i == pixelArray.size() - 1 || j == pixelArray.get(0).size() - 1) {
-          continue;
+  // Same as filterRegionSeparable for weights that are exact binary fractions. Both passes add up
+  // samples multiplied by the scaled weights in integers, which is exact, and the result is
+  // rounded once at the end exactly as the floating point sum would be.
+  private void filterRegionSeparableFixed(RasterInterface source, int x, int y, int width,
+                                          int height, KernelWeights columnWeights,
+                                          KernelWeights rowWeights, EdgeMode edgeMode,
+                                          RowSink sink) {
+    int[] column = columnWeights.scaled();
+    int[] row = rowWeights.scaled();
+    int shift = columnWeights.getShift() + rowWeights.getShift();
+    int size = row.length;
+    int cVal = size / 2;
+    RowWindow reader = new RowWindow(source, x, width, cVal, edgeMode);
+    int[] sourceRow = new int[reader.getRowLength()];
+    long[][] filteredRows = new long[size][3 * width];
+    long[] sums = new long[3 * width];
+    int[] out = new int[3 * width];
+
+    boolean rowRuns = PixelLoops.usesRowRuns();
+    for (int r = 0; r < height + 2 * cVal; r++) {
+      // Horizontal pass
+      reader.readRow(y - cVal + r, sourceRow);
+      long[] filtered = filteredRows[r % size];
+      if (rowRuns) {
+        Arrays.fill(filtered, 0);
+        PixelLoops.addTaps(filtered, sourceRow, row, 0, size);
+      } else {
+        for (int k = 0; k < filtered.length; k++) {
+          long sum = 0;
+          for (int fj = 0; fj < size; fj++) {
+            sum += (long) row[fj] * sourceRow[k + 3 * fj];
+          }
+          filtered[k] = sum;
         }
+      }
+      if (r < size - 1) {
+        continue;
+      }
 
-        // Propagate error to neighboring pixels
-
-        // add (7/16 * error) to pixel on the right (i, j + 1)
-        pixelArray.get(i).set(j + 1,
-                new RGBPixel(
-                        makeValueAcceptable(
-                                (int) ((0.4375) * (errorMatrix.get(i).get(j))
-                                        + (double) pixelArray.get(i).get(j + 1).getRed())
-                        )
-                )
-        );
-
-        // add (3/16 * error) to pixel on the next-row-left (i+1,j-1)
-        pixelArray.get(i + 1).set(j - 1,
-                new RGBPixel(
-                        makeValueAcceptable(
-                                (int) ((0.1875) * (errorMatrix.get(i).get(j))
-                                        + (double) pixelArray.get(i + 1).get(j - 1).getRed())
-                        )
-                )
-        );
-
-        // add (5/16 * error) to pixel below in next row (i+1,j)
-        pixelArray.get(i + 1).set(j,
-                new RGBPixel(
-                        makeValueAcceptable(
-                                (int) ((0.3125) * (errorMatrix.get(i).get(j))
-                                        + (double) pixelArray.get(i + 1).get(j).getRed())
-                        )
-                )
-        );
-
-        // add (1/16 * error) to pixel on the next-row-right (i+1,j+1)
-        pixelArray.get(i + 1).set(j + 1,
-                new RGBPixel(
-                        makeValueAcceptable(
-                                (int) ((0.0625) * (errorMatrix.get(i).get(j))
-                                        + (double) pixelArray.get(i + 1).get(j + 1).getRed())
-                        )
-                )
-        );
-      }
-    }
-
-    return new ImageImpl(pixelArray);
+      // Vertical pass, over the filtered rows from r - size + 1 to r
+      int i = r - size + 1;
+      if (rowRuns) {
+        Arrays.fill(sums, 0);
+        for (int fi = 0; fi < size; fi++) {
+          PixelLoops.addScaled(sums, filteredRows[(i + fi) % size], column[fi]);
+        }
+        PixelLoops.store(sums, shift, out, 0, this.maxColorValue);
+      } else {
+        for (int k = 0; k < out.length; k++) {
+          long sum = 0;
+          for (int fi = 0; fi < size; fi++) {
+            sum += column[fi] * filteredRows[(i + fi) % size][k];
+          }
+          out[k] = makeValueAcceptable(KernelWeights.round(sum, shift));
+        }
+      }
+      sink.accept(i, out);
+    }
   }
 
-  @Override
-  public ImageInterface mosaic(int numOfSeeds) {
-    List<List<PixelInterface>> mosaicImage;
+  // Filters a region of the source through the Fourier transform. The transform needs a whole
+  // block of rows at once, so the region is read and filtered one block at a time.
+  private void filterRegionFourier(RasterInterface source, int x, int y, int width, int height,
+                                   FftConvolver convolver, int cVal, EdgeMode edgeMode,
+                                   RowSink sink) {
+    int block = convolver.getBlockSize();
+    int[] samples = new int[3 * width * Math.min(block, height)];
+    int[] out = new int[3 * width];
+    for (int by = 0; by < height; by += block) {
+      int blockHeight = Math.min(block, height - by);
+      convolver.filter(readPaddedRows(source, x, y + by, width, blockHeight, cVal, edgeMode),
+              width, blockHeight, this.maxColorValue, samples);
+      for (int i = 0; i < blockHeight; i++) {
+        System.arraycopy(samples, 3 * width * i, out, 0, out.length);
+        sink.accept(by + i, out);
+      }
+    }
+  }
 
-    int height = this.imageArray.size();
-    int width = this.imageArray.get(0).size();
+  // Reads the rows a region depends on, each padded by cVal pixels on both sides
+  private static int[][] readPaddedRows(RasterInterface source, int x, int y, int width,
+                                        int height, int cVal, EdgeMode edgeMode) {
+    RowWindow reader = new RowWindow(source, x, width, cVal, edgeMode);
+    int[][] rows = new int[height + 2 * cVal][reader.getRowLength()];
+    for (int r = 0; r < rows.length; r++) {
+      reader.readRow(y - cVal + r, rows[r]);
+    }
+    return rows;
+  }
 
-    List<int[]> seeds = generateRandomSeeds(numOfSeeds, width, height);
-    Map<int[], List<PixelInterface>> clusters = createClusters(seeds, width, height);
-    Map<int[], PixelInterface> clusterColors = computeClusterColors(clusters);
-    mosaicImage = createMosaicImage(width, height, seeds, clusterColors);
+  private ImageInterface applyColorTransform(ColorTransform cT) {
+    return applyRowOperation(transformOperation(cT));
+  }
 
-    return new ImageImpl(mosaicImage);
+  @Override
+  public PointPipeline pipeline() {
+    return new PointPipeline(this);
   }
 
-  //create pixel clusters for implementing mosaic operation.
-  private Map<int[], List<PixelInterface>> createClusters(List<int[]> seeds, int width,
-                                                          int height) {
-    Map<int[], List<PixelInterface>> clusters = new HashMap<>();
-    for (int x = 0; x < width; x++) {
-      for (int y = 0; y < height; y++) {
-        int[] pixel = {x, y};
-        int[] closestSeed = findClosestSeed(pixel, seeds);
-        PixelInterface color = getValidPixel(y, x);
-        List<PixelInterface> cluster = clusters.getOrDefault(closestSeed, new ArrayList<>());
-        cluster.add(color);
-        clusters.put(closestSeed, cluster);
+  /**
+   * Creates an operation that adds the given value to every sample of a row.
+   *
+   * @param value the value to add, negative to darken.
+   * @return the brighten operation.
+   */
+  RowOperation brightenOperation(int value) {
+    if (this.maxColorValue <= DEFAULT_MAX_VALUE) {
+      return lutOperation(ChannelLut.brighten(value, this.maxColorValue));
+    }
+    // Deeper images add the value directly rather than through a table of every sample value
+    return row -> {
+      if (PixelLoops.usesRowRuns()) {
+        PixelLoops.addClamped(row, value, this.maxColorValue);
+        return;
+      }
+      for (int k = 0; k < row.length; k++) {
+        row[k] = makeValueAcceptable(row[k] + value);
       }
+    };
+  }
+
+  /**
+   * Creates an operation that maps every sample of a row through the given lookup table.
+   *
+   * @param lut the lookup table.
+   * @return the lookup operation.
+   * @throws IllegalArgumentException if the table is null or does not map the samples of this
+   *                                  image.
+   */
+  RowOperation lutOperation(ChannelLut lut) throws IllegalArgumentException {
+    if (lut == null) {
+      throw new IllegalArgumentException("Lookup table is null");
+    }
+    if (lut.getMaxValue() != this.maxColorValue) {
+      throw new IllegalArgumentException("The lookup table maps values up to "
+              + lut.getMaxValue() + " but the image has values up to " + this.maxColorValue);
     }
-    return clusters;
+    return lut::apply;
   }
 
-  //compute the cluster colors for mosaic operation.
-  private Map<int[], PixelInterface> computeClusterColors(Map<int[],
-          List<PixelInterface>> clusters) {
-    Map<int[], PixelInterface> clusterColors = new HashMap<>();
-    for (Map.Entry<int[], List<PixelInterface>> entry : clusters.entrySet()) {
-      int[] seed = entry.getKey();
-      List<PixelInterface> colors = entry.getValue();
-      PixelInterface averageColor = computeAverageColor(colors);
-      clusterColors.put(seed, averageColor);
+  /**
+   * Creates an operation that applies the given color transform to every pixel of a row.
+   *
+   * @param cT the color transform.
+   * @return the transform operation.
+   */
+  RowOperation transformOperation(ColorTransform cT) {
+    if (cT == null) {
+      throw new IllegalArgumentException("Color transform is null");
     }
-    return clusterColors;
+    return row -> cT.apply(row, this.maxColorValue);
   }
 
-  //create mosaic image after mosaic operation.
-  private List<List<PixelInterface>> createMosaicImage(int width, int height, List<int[]> seeds,
-                                                       Map<int[], PixelInterface> clusterColors) {
-    List<List<PixelInterface>> mosaicImage = new ArrayList<>();
-    for (int x = 0; x < height; x++) {
-      List<PixelInterface> row = new ArrayList<>();
-      for (int y = 0; y < width; y++) {
-        int[] pixel = {y, x};
-        int[] closestSeed = findClosestSeed(pixel, seeds);
-        PixelInterface color = clusterColors.get(closestSeed);
-        row.add(color);
+  /**
+   * Creates an operation that replaces every pixel of a row by the given component of the pixel.
+   *
+   * @param color the name of the component, as accepted by greyscale.
+   * @return the component operation.
+   * @throws IllegalArgumentException if the component is not known.
+   */
+  RowOperation componentOperation(String color) throws IllegalArgumentException {
+    if (!functionMap.containsKey(color)) {
+      throw new IllegalArgumentException("Illegal color component for RGB image + "
+              + color + "\n");
+    }
+    if (color.equals("luma-component")) {
+      // The luma is a sum of one table lookup per channel, rounded as the function does
+      return transformOperation(LUMA);
+    }
+    ComponentFunction component = this.functionMap.get(color);
+    return row -> {
+      for (int k = 0; k < row.length; k += 3) {
+        int value = makeValueAcceptable(component.apply(row[k], row[k + 1], row[k + 2]));
+        row[k] = value;
+        row[k + 1] = value;
+        row[k + 2] = value;
       }
-      mosaicImage.add(row);
+    };
+  }
+
+  /**
+   * Applies the given operation to every row of this image in a single pass. Tiled images get a
+   * lazy result whose tiles are computed when they are first read.
+   *
+   * @param operation the operation to apply to the interleaved samples of each row.
+   * @return the resulting image.
+   */
+  ImageInterface applyRowOperation(RowOperation operation) {
+    int n = this.raster.getHeight();
+    int m = this.raster.getWidth();
+    RasterInterface result = this.raster.createCompatible(m, n);
+    RasterInterface source = this.raster;
+    if (result instanceof TiledRaster) {
+      // Every tile of the result is computed when it is first read
+      return shareRaster(new TiledRaster(m, n, (x, y, width, height, samples) -> {
+        int[] row = new int[3 * width];
+        for (int i = 0; i < height; i++) {
+          source.readSamples(y + i, x, width, row);
+          operation.apply(row);
+          System.arraycopy(row, 0, samples, 3 * width * i, row.length);
+        }
+      }));
     }
-    return mosaicImage;
+
+    // Bands of rows run in parallel into the preallocated result, each with its own row
+    ParallelExecutor.forEachRowRange(n, (start, end) ->
+            applyToRows(source, result, operation, m, start, end));
+    return new ImageImpl(result, this.maxColorValue);
   }
 
-  //generate random seeds list for mosaic operation.
-  private List<int[]> generateRandomSeeds(int numSeeds, int width, int height) {
-    List<int[]> seeds = new ArrayList<>();
-    Random random = new Random(200);
-    for (int i = 0; i < numSeeds; i++) {
-      int x = random.nextInt(width);
-      int y = random.nextInt(height);
-      seeds.add(new int[]{x, y});
+  /**
+   * Applies the given operation to every row of this image and writes the results over the
+   * pixels of this image, so no destination is allocated. This is meant for callers that discard
+   * the source image. An image whose raster is shared with another image, or is computed lazily,
+   * gets the raster of a new result instead, so other images never see the change.
+   *
+   * @param operation the operation to apply to the interleaved samples of each row.
+   */
+  void applyRowOperationInPlace(RowOperation operation) {
+    if (this.shared || this.raster instanceof TiledRaster) {
+      ImageImpl result = (ImageImpl) applyRowOperation(operation);
+      this.raster = result.raster;
+      this.shared = result.shared;
+      this.imageArray = null;
+      return;
     }
-    return seeds;
+    int n = this.raster.getHeight();
+    int m = this.raster.getWidth();
+    RasterInterface raster = this.raster;
+    raster.prepareForWrite();
+    ParallelExecutor.forEachRowRange(n, (start, end) ->
+            applyToRows(raster, raster, operation, m, start, end));
   }
 
-  //find the closest seed for the given pixel for mosaic operation.
-  private int[] findClosestSeed(int[] pixel, List<int[]> seeds) {
-    double minDistance = Double.MAX_VALUE;
-    int[] closestSeed = null;
-    for (int[] seed : seeds) {
-      double distance = Math.sqrt(Math.pow(seed[0] - pixel[0], 2)
-              + Math.pow(seed[1] - pixel[1], 2));
-      if (distance < minDistance) {
-        minDistance = distance;
-        closestSeed = seed;
+  // Reads the rows from start to end of the source, applies the operation and writes them
+  private static void applyToRows(RasterInterface source, RasterInterface destination,
+                                  RowOperation operation, int width, int start, int end) {
+    int[] row = new int[3 * width];
+    for (int i = start; i < end; i++) {
+      source.readSamples(i, row);
+      operation.apply(row);
+      destination.writeSamples(i, row);
+    }
+  }
+
+  // Filters the pixel in column j of a region. The rows of the window are padded by half the
+  // kernel size on both sides, so the taps of the pixel start at column j of the window.
+  private void filterPixel(int j, int[][] window, double[] weights, int size, int[] out,
+                           int index) {
+    double rSum = 0;
+    double gSum = 0;
+    double bSum = 0;
+
+    for (int fi = 0; fi < size; fi++) {
+      int[] sourceRow = window[fi];
+      for (int fj = 0, k = 3 * j; fj < size; fj++, k += 3) {
+        double weight = weights[fi * size + fj];
+        rSum += weight * sourceRow[k];
+        gSum += weight * sourceRow[k + 1];
+        bSum += weight * sourceRow[k + 2];
       }
     }
-    return closestSeed;
+    out[index] = makeValueAcceptable((int) Math.round(rSum));
+    out[index + 1] = makeValueAcceptable((int) Math.round(gSum));
+    out[index + 2] = makeValueAcceptable((int) Math.round(bSum));
   }
 
-  //compute average color for pixels for mosaic operation.
-  private PixelInterface computeAverageColor(List<PixelInterface> colors) {
-    int r = 0;
-    int g = 0;
-    int b = 0;
-    for (PixelInterface color : colors) {
-      r += color.getRed();
-      g += color.getGreen();
-      b += color.getBlue();
+  // Same as filterPixel for weights scaled by 2^shift to integers
+  private void filterPixelFixed(int j, int[][] window, int[] weights, int shift, int size,
+                                int[] out, int index) {
+    long rSum = 0;
+    long gSum = 0;
+    long bSum = 0;
+
+    for (int fi = 0; fi < size; fi++) {
+      int[] sourceRow = window[fi];
+      for (int fj = 0, k = 3 * j; fj < size; fj++, k += 3) {
+        long weight = weights[fi * size + fj];
+        rSum += weight * sourceRow[k];
+        gSum += weight * sourceRow[k + 1];
+        bSum += weight * sourceRow[k + 2];
+      }
     }
-    int numColors = colors.size();
-    int avgR = r / numColors;
-    int avgG = g / numColors;
-    int avgB = b / numColors;
-    return new RGBPixel(avgR, avgG, avgB);
+    out[index] = makeValueAcceptable(KernelWeights.round(rSum, shift));
+    out[index + 1] = makeValueAcceptable(KernelWeights.round(gSum, shift));
+    out[index + 2] = makeValueAcceptable(KernelWeights.round(bSum, shift));
   }
 
-  private ImageInterface applyFilter(Kernel kernel) throws IllegalArgumentException {
-    List<List<Double>> filter = kernel.filter;
+  // Reads a row of this image and stores the greyscale value of every pixel in grey
+  private void readLumaRow(int i, int[] samples, int[] grey,
+                           double lumaR, double lumaG, double lumaB) {
+    this.raster.readSamples(i, samples);
+    for (int j = 0; j < grey.length; j++) {
+      grey[j] = makeValueAcceptable((int) Math.round(
+              lumaR * samples[3 * j] + lumaG * samples[3 * j + 1] + lumaB * samples[3 * j + 2]));
+    }
+  }
 
-    List<List<PixelInterface>> newP = new ArrayList<>();
+  // Set pixel to black or white depending on its greyscale value
+  private static void threshold(int[] grey, int[] pixels, int middle, int white) {
+    for (int j = 0; j < grey.length; j++) {
+      pixels[j] = grey[j] < middle ? 0 : white;
+    }
+  }
 
-    for (int i = 0; i < imageArray.size(); i++) {
-      List<PixelInterface> row = new ArrayList<>();
-      for (int j = 0; j < imageArray.get(0).size(); j++) {
-        row.add(filterPixel(i, j, filter));
+  // Copies the plane of a greyscale image. Images that do not share a single plane across their
+  // channels are checked pixel by pixel.
+  private static byte[] greyPlane(ImageInterface image, int band) {
+    RasterInterface source;
+    if (image instanceof ImageImpl) {
+      source = ((ImageImpl) image).raster;
+    } else {
+      source = new ImageImpl(image).raster;
+    }
+    if (source instanceof PlanarRaster && ((PlanarRaster) source).isGreyscale()) {
+      return ((PlanarRaster) source).getPlane(band).clone();
+    }
+
+    int width = source.getWidth();
+    byte[] plane = new byte[width * source.getHeight()];
+    int[] row = new int[3 * width];
+    for (int i = 0; i < source.getHeight(); i++) {
+      source.readSamples(i, row);
+      for (int j = 0, k = 0; j < width; j++, k += 3) {
+        if (row[k] != row[k + 1] || row[k] != row[k + 2]) {
+          throw new IllegalArgumentException("Image provided was not greyscale");
+        }
+        plane[i * width + j] = (byte) row[k + band];
       }
-      newP.add(row);
     }
-    return new ImageImpl(newP);
+    return plane;
   }
 
-  private ImageInterface applyColorTransform(ColorTransform cT) {
-    List<List<PixelInterface>> transformedImage = new ArrayList<>();
-    for (int i = 0; i < imageArray.size(); i++) {
-      List<PixelInterface> row = new ArrayList<>();
-      for (int j = 0; j < imageArray.get(0).size(); j++) {
-        row.add(transformPixel(cT.transform, i, j));
-      }
-      transformedImage.add(row);
-    }
-    return new ImageImpl(transformedImage);
-  }
-
-  private PixelInterface transformPixel(List<List<Double>> coeffs, int i, int j) {
-    int red = imageArray.get(i).get(j).getRed();
-    int green = imageArray.get(i).get(j).getGreen();
-    int blue = imageArray.get(i).get(j).getBlue();
-
-
-    int r = makeValueAcceptable((int)
-            Math.round(
-                    coeffs.get(0).get(0) * red
-                            + coeffs.get(0).get(1) * green
-                            + coeffs.get(0).get(2) * blue
-            )
-    );
-    int g = makeValueAcceptable((int)
-            Math.round(
-                    coeffs.get(1).get(0) * red
-                            + coeffs.get(1).get(1) * green
-                            + coeffs.get(1).get(2) * blue
-            )
-    );
-    int b = makeValueAcceptable((int)
-            Math.round(coeffs.get(2).get(0) * red
-                    + coeffs.get(2).get(1) * green
-                    + coeffs.get(2).get(2) * blue
-            )
-    );
-    return new RGBPixel(r, g, b);
-  }
-
-  private PixelInterface filterPixel(int i, int j, List<List<Double>> filter) {
-    int cVal = (filter.size() / 2);
+  private static void fillSamples(List<PixelInterface> pixels, int[] row) {
+    for (int j = 0; j < pixels.size(); j++) {
+      PixelInterface pixel = pixels.get(j);
+      row[3 * j] = pixel.getRed();
+      row[3 * j + 1] = pixel.getGreen();
+      row[3 * j + 2] = pixel.getBlue();
+    }
+  }
 
-    double rSum = 0;
-    double gSum = 0;
-    double bSum = 0;
+  /**
+   * Return the raster holding the pixels of this image. The raster is not copied.
+   *
+   * @return the raster of this image.
+   */
+  RasterInterface getRaster() {
+    return this.raster;
+  }
 
-    for (int fi = 0; fi < filter.size(); fi++) {
-      int sR = i - cVal + fi;
-      for (int fj = 0; fj < filter.size(); fj++) {
-        int sC = j - cVal + fj;
-        PixelInterface validPixel = getValidPixel(sR, sC);
-        rSum += filter.get(fi).get(fj) * validPixel.getRed();
-        gSum += filter.get(fi).get(fj) * validPixel.getGreen();
-        bSum += filter.get(fi).get(fj) * validPixel.getBlue();
-      }
+  // Creates an image that reads the given raster, which still depends on the raster of this image
+  private ImageInterface shareRaster(RasterInterface view) {
+    ImageImpl image = new ImageImpl(view, this.maxColorValue);
+    image.shared = true;
+    this.shared = true;
+    return image;
+  }
+
+  // Gives this image a raster of its own before it is modified
+  private void prepareForWrite() {
+    if (this.shared) {
+      this.raster = this.raster.copy();
+      this.shared = false;
     }
-    int r = makeValueAcceptable((int) Math.round(rSum));
-    int g = makeValueAcceptable((int) Math.round(gSum));
-    int b = makeValueAcceptable((int) Math.round(bSum));
-    return new RGBPixel(r, g, b);
   }
 
-  private PixelInterface getValidPixel(int i, int j) {
-    if (i < 0 || j < 0 || i >= imageArray.size() || j >= imageArray.get(0).size()) {
-      return new RGBPixel(0);
+  private void checkRegion(int x, int y, int width, int height, int[] values) {
+    if (values == null) {
+      throw new IllegalArgumentException("The pixel array is null");
+    }
+    if (x < 0 || y < 0 || width < 0 || height < 0
+            || x + width > this.raster.getWidth() || y + height > this.raster.getHeight()) {
+      throw new IllegalArgumentException("The region is outside of the image");
+    }
+    if (values.length < width * height) {
+      throw new IllegalArgumentException("The pixel array is too small for the region");
     }
-    return imageArray.get(i).get(j);
   }
 
   private int makeValueAcceptable(int x) {
@@ -604,4 +1231,100 @@ public class ImageImpl implements ImageInterface {
     }
     return x;
   }
+
+  private int makeValueAcceptable(long x) {
+    return (int) Math.max(0, Math.min(this.maxColorValue, x));
+  }
+
+  // Function that retrieves a single component from the red, green and blue values of a pixel
+  private interface ComponentFunction {
+    int apply(int red, int green, int blue);
+  }
+
+  // Receives the rows of a filtered region, row i of the region as 3 * width samples. The array
+  // is reused for the next row, so it has to be consumed before the call returns.
+  private interface RowSink {
+    void accept(int i, int[] row);
+  }
+
+  // Filters a region of the image, handing every filtered row to the sink in order
+  private interface RegionFilter {
+    void filter(int x, int y, int width, int height, RowSink sink);
+  }
+
+  // Read-only view of the raster as rows of pixels. Pixel objects are created when they are read.
+  private class ArrayView extends AbstractList<List<PixelInterface>> {
+
+    @Override
+    public List<PixelInterface> get(int i) {
+      if (i < 0 || i >= raster.getHeight()) {
+        throw new IndexOutOfBoundsException("Row " + i + " is outside of the image");
+      }
+      return new AbstractList<>() {
+        @Override
+        public PixelInterface get(int j) {
+          if (j < 0 || j >= raster.getWidth()) {
+            throw new IndexOutOfBoundsException("Column " + j + " is outside of the image");
+          }
+          return new RGBPixel(raster.getSample(i, j, 0), raster.getSample(i, j, 1),
+                  raster.getSample(i, j, 2));
+        }
+
+        @Override
+        public int size() {
+          return raster.getWidth();
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return raster.getHeight();
+    }
+  }
+
+  // Spliterator over a range of rows of a raster. Splitting hands out the first half of the range.
+  private static class RowSpliterator implements Spliterator<int[]> {
+    private final RasterInterface raster;
+    private int row;
+    private final int end;
+
+    RowSpliterator(RasterInterface raster, int row, int end) {
+      this.raster = raster;
+      this.row = row;
+      this.end = end;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super int[]> action) {
+      if (this.row >= this.end) {
+        return false;
+      }
+      int[] values = new int[this.raster.getWidth()];
+      this.raster.readRow(this.row++, values);
+      action.accept(values);
+      return true;
+    }
+
+    @Override
+    public Spliterator<int[]> trySplit() {
+      int mid = (this.row + this.end) >>> 1;
+      if (mid <= this.row) {
+        return null;
+      }
+      Spliterator<int[]> prefix = new RowSpliterator(this.raster, this.row, mid);
+      this.row = mid;
+      return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+      return this.end - this.row;
+    }
+
+    @Override
+    public int characteristics() {
+      return ORDERED | SIZED | SUBSIZED | NONNULL;
+    }
+  }
 }
@@ -1,6 +1,7 @@
 package imagemodel;
 
 import java.util.List;
+import java.util.Spliterator;
 
 /**
  * This interface represents an image. It contains methods to get the width and height of the image,
@@ -41,6 +42,16 @@ public interface ImageInterface {
    */
   ImageInterface greyscale(String color);
 
+  /**
+   * Maps every sample of the image through a lookup table of its channel, which can express any
+   * adjustment of each sample on its own, such as levels or curves.
+   *
+   * @param lut the lookup table, which maps values up to the largest value of the image.
+   * @return a new image with every sample mapped.
+   * @throws IllegalArgumentException if the table is null or maps a different range of values.
+   */
+  ImageInterface applyLut(ChannelLut lut) throws IllegalArgumentException;
+
   /**
    * Converts this image to greyscale.
    *
@@ -70,6 +81,36 @@ public interface ImageInterface {
    */
   List<Integer> getSize();
 
+  /**
+   * Starts a pipeline of point operations on this image, such as brighten, sepia and greyscale.
+   * The operations added to the pipeline are applied together in a single pass over the image.
+   *
+   * @return a new, empty pipeline on this image.
+   */
+  PointPipeline pipeline();
+
+  /**
+   * Return the approximate number of bytes of pixel data held by this image, on or off the heap.
+   * Images that are views of another image only count the pixels they hold themselves.
+   *
+   * @return the size of the pixel data in bytes.
+   */
+  long estimatedBytes();
+
+  /**
+   * Return the width of the image without allocating a list.
+   *
+   * @return the number of columns of the image.
+   */
+  int getWidth();
+
+  /**
+   * Return the height of the image without allocating a list.
+   *
+   * @return the number of rows of the image.
+   */
+  int getHeight();
+
   /**
    * Performs the blur operation on the image using the given kernel.
    *
@@ -78,6 +119,29 @@ public interface ImageInterface {
    */
   ImageInterface blur(Kernel blur);
 
+  /**
+   * Performs the blur operation on the image using the given kernel, filling in the pixels the
+   * kernel reaches beyond the edges of the image as the edge mode says.
+   *
+   * @param blur     the kernel to use for the blur operation.
+   * @param edgeMode how pixels outside of the image are treated.
+   * @return a new image that is the blurred version of the original.
+   */
+  ImageInterface blur(Kernel blur, EdgeMode edgeMode);
+
+  /**
+   * Filters the image with any kernel, filling in the pixels the kernel reaches beyond the edges
+   * of the image as the edge mode says. The kernel is applied in the fastest way it allows:
+   * as two passes if it is separable, in integers if its weights are binary fractions, and
+   * through the Fourier transform if it is large.
+   *
+   * @param kernel   the kernel to filter the image with.
+   * @param edgeMode how pixels outside of the image are treated.
+   * @return a new image that is the filtered version of the original.
+   * @throws IllegalArgumentException if the kernel or the edge mode is null.
+   */
+  ImageInterface convolve(Kernel kernel, EdgeMode edgeMode) throws IllegalArgumentException;
+
   /**
    * Performs the sharpen operation on the image using the given kernel.
    *
@@ -86,6 +150,37 @@ public interface ImageInterface {
    */
   ImageInterface sharpen(Kernel sharpen);
 
+  /**
+   * Performs the sharpen operation on the image using the given kernel, filling in the pixels the
+   * kernel reaches beyond the edges of the image as the edge mode says.
+   *
+   * @param sharpen  the kernel to use for the sharpen operation.
+   * @param edgeMode how pixels outside of the image are treated.
+   * @return a new image that is the sharpened version of the original.
+   */
+  ImageInterface sharpen(Kernel sharpen, EdgeMode edgeMode);
+
+  /**
+   * Replaces every pixel by the mean of the square of pixels around it that reaches radius pixels
+   * in each direction. Only the pixels inside the image are averaged, and every pixel takes the
+   * same time whatever the radius.
+   *
+   * @param radius the number of pixels the square reaches from its center.
+   * @return a new image that is the blurred version of the original.
+   * @throws IllegalArgumentException if the radius is negative.
+   */
+  ImageInterface boxBlur(int radius) throws IllegalArgumentException;
+
+  /**
+   * Blurs this image with a Gaussian of the given standard deviation. The blur is computed
+   * recursively, so every pixel takes the same time whatever the standard deviation.
+   *
+   * @param sigma the standard deviation of the Gaussian in pixels, at least 0.5.
+   * @return a new image that is the blurred version of the original.
+   * @throws IllegalArgumentException if sigma is less than 0.5 or not a number.
+   */
+  ImageInterface gaussianBlur(double sigma) throws IllegalArgumentException;
+
   /**
    * Converts this image to sepia.
    *
@@ -108,4 +203,79 @@ public interface ImageInterface {
    * @return a new image that is the changed version of the original.
    */
   ImageInterface mosaic(int numOfSeeds);
+
+  /**
+   * Return the largest value a color component of this image can take, for example 255 for 8 bit
+   * images and 65535 for 16 bit images.
+   *
+   * @return the maximum color value of this image.
+   */
+  int getMaxValue();
+
+  /**
+   * Copies a row of the image into the given array as packed 0xRRGGBB values. Images with more
+   * than 8 bits per channel are scaled down to 8 bits.
+   *
+   * @param y   the row to read.
+   * @param dst the array to fill, must hold at least one value per column.
+   * @throws IllegalArgumentException if the row is outside of the image or dst is too small.
+   */
+  void readRow(int y, int[] dst) throws IllegalArgumentException;
+
+  /**
+   * Copies a row of the image into the given array as interleaved red, green and blue samples, at
+   * the full depth of the image. The samples of column j are stored at 3 * j, 3 * j + 1 and
+   * 3 * j + 2.
+   *
+   * @param y   the row to read.
+   * @param dst the array to fill, must hold at least three values per column.
+   * @throws IllegalArgumentException if the row is outside of the image or dst is too small.
+   */
+  void readSamples(int y, int[] dst) throws IllegalArgumentException;
+
+  /**
+   * Copies a rectangular region of the image into the given array as packed 0xRRGGBB values. The
+   * pixel at column x + c and row y + r is stored at index r * width + c.
+   *
+   * @param x      the first column of the region.
+   * @param y      the first row of the region.
+   * @param width  the number of columns in the region.
+   * @param height the number of rows in the region.
+   * @param dst    the array to fill, must hold at least width * height values.
+   * @throws IllegalArgumentException if the region is outside of the image or dst is too small.
+   */
+  void readRegion(int x, int y, int width, int height, int[] dst)
+          throws IllegalArgumentException;
+
+  /**
+   * Overwrites a row of this image with the given packed 0xRRGGBB values.
+   *
+   * @param y   the row to write.
+   * @param src the packed values, one per column.
+   * @throws IllegalArgumentException if the row is outside of the image or src is too small.
+   */
+  void writeRow(int y, int[] src) throws IllegalArgumentException;
+
+  /**
+   * Overwrites a rectangular region of this image with the given packed 0xRRGGBB values, laid out
+   * in the same way as in readRegion.
+   *
+   * @param x      the first column of the region.
+   * @param y      the first row of the region.
+   * @param width  the number of columns in the region.
+   * @param height the number of rows in the region.
+   * @param src    the packed values, at least width * height of them.
+   * @throws IllegalArgumentException if the region is outside of the image or src is too small.
+   */
+  void writeRegion(int x, int y, int width, int height, int[] src)
+          throws IllegalArgumentException;
+
+  /**
+   * Returns a spliterator over the rows of this image, from top to bottom. Every row is a new
+   * array of packed 0xRRGGBB values. The spliterator splits by rows, so it can back a parallel
+   * stream.
+   *
+   * @return a spliterator over the rows of the image.
+   */
+  Spliterator<int[]> rowSpliterator();
 }
@@ -1,8 +1,10 @@
 package imagemodel;
 
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Stack;
+import java.util.TreeMap;
 
 /**
  * This class represents an image store. It stores a map of image names to images.
@@ -28,4 +30,83 @@ public class ImageStore {
   public Stack<String> getStack() {
     return this.imageBeingWorkedOn;
   }
+
+  /**
+   * Returns a report of the memory held by the stored images. Every image is listed by name with
+   * its dimensions, how its pixels are stored and the approximate number of bytes it holds on and
+   * off the heap. Images sharing their pixels with an image listed before them are marked as
+   * shared and only counted once in the totals.
+   *
+   * @return the report, one line per image followed by the totals.
+   */
+  public String memoryReport() {
+    return memoryReport(true);
+  }
+
+  /**
+   * Returns a single line summary of the memory held by the stored images.
+   *
+   * @return the number of images and the bytes they hold on and off the heap.
+   */
+  public String memorySummary() {
+    return memoryReport(false).trim();
+  }
+
+  private String memoryReport(boolean listImages) {
+    StringBuilder report = new StringBuilder();
+    if (listImages) {
+      report.append(String.format("%-24s %-12s %-40s %10s %10s%n",
+              "Image", "Size", "Storage", "Heap", "Off-heap"));
+    }
+
+    Map<Object, String> owners = new IdentityHashMap<>();
+    long heap = 0;
+    long offHeap = 0;
+    for (Map.Entry<String, ImageInterface> entry : new TreeMap<>(this.images).entrySet()) {
+      ImageInterface image = entry.getValue();
+      long bytes = image.estimatedBytes();
+      String storage = "unknown";
+      boolean isOffHeap = false;
+      Object pixels = image;
+      if (image instanceof ImageImpl) {
+        RasterInterface raster = ((ImageImpl) image).getRaster();
+        storage = raster.describe();
+        isOffHeap = raster.isOffHeap();
+        pixels = raster;
+      }
+
+      String owner = owners.putIfAbsent(pixels, entry.getKey());
+      if (owner != null) {
+        storage = "shared with " + owner;
+      } else if (isOffHeap) {
+        offHeap += bytes;
+      } else {
+        heap += bytes;
+      }
+      if (listImages) {
+        report.append(String.format("%-24s %-12s %-40s %10s %10s%n", entry.getKey(),
+                image.getWidth() + "x" + image.getHeight(), storage,
+                formatBytes(isOffHeap ? 0 : bytes), formatBytes(isOffHeap ? bytes : 0)));
+      }
+    }
+
+    report.append(String.format("%d images, %s on heap, %s off heap%n",
+            this.images.size(), formatBytes(heap), formatBytes(offHeap)));
+    return report.toString();
+  }
+
+  // Formats a number of bytes with a binary unit, for example 1.5 MB
+  private static String formatBytes(long bytes) {
+    String[] units = {"B", "KB", "MB", "GB", "TB"};
+    double value = bytes;
+    int unit = 0;
+    while (value >= 1024 && unit < units.length - 1) {
+      value /= 1024;
+      unit++;
+    }
+    if (unit == 0) {
+      return bytes + " B";
+    }
+    return String.format("%.1f %s", value, units[unit]);
+  }
 }
\ No newline at end of file
@@ -0,0 +1,188 @@
+package imagemodel;
+
+/**
+ * This class represents the summed-area table of an image. Entry (x, y) of a band holds the sum
+ * of that band over all the pixels above and to the left of (x, y), so the sum over any
+ * rectangle of the image takes four lookups whatever its size. This makes local means, such as a
+ * box blur, cost the same for every radius.
+ */
+public class IntegralImage {
+
+  private final int width;
+  private final int height;
+  private final int top;
+  private final int bottom;
+  // (width + 1) * (bottom - top + 1) entries per band, interleaved, with a first row and column
+  // of zeros. Only one of the two is set: ints when every sum of the table fits in an int.
+  private final int[] ints;
+  private final long[] longs;
+
+  /**
+   * Computes the summed-area table of the given image.
+   *
+   * @param image the image to sum up
+   * @throws IllegalArgumentException if the image is null or too large for a table
+   */
+  public IntegralImage(ImageInterface image) throws IllegalArgumentException {
+    this(image, 0, image == null ? 0 : image.getHeight());
+  }
+
+  /**
+   * Computes the summed-area table of a band of rows of the given image. Only rectangles within
+   * those rows can be summed, which keeps the table small when only nearby rows are needed.
+   *
+   * @param image  the image to sum up
+   * @param top    the first row of the band
+   * @param bottom the row after the last row of the band
+   * @throws IllegalArgumentException if the image is null, the rows are not within the image or
+   *                                  the band is too large for a table
+   */
+  public IntegralImage(ImageInterface image, int top, int bottom)
+          throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("Image is null");
+    }
+    this.width = image.getWidth();
+    this.height = image.getHeight();
+    if (top < 0 || bottom > this.height || top > bottom) {
+      throw new IllegalArgumentException("Invalid rows: " + top + " to " + bottom);
+    }
+    this.top = top;
+    this.bottom = bottom;
+    long entries = 3L * (this.width + 1) * (bottom - top + 1);
+    if (entries > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("The image is too large for a summed-area table");
+    }
+    // The largest entry is the sum of a band over the whole table
+    if ((long) this.width * (bottom - top) * image.getMaxValue() <= Integer.MAX_VALUE) {
+      this.ints = new int[(int) entries];
+      this.longs = null;
+    } else {
+      this.ints = null;
+      this.longs = new long[(int) entries];
+    }
+
+    int stride = 3 * (this.width + 1);
+    int[] row = new int[3 * this.width];
+    long[] rowSums = new long[3];
+    for (int y = top; y < bottom; y++) {
+      image.readSamples(y, row);
+      rowSums[0] = 0;
+      rowSums[1] = 0;
+      rowSums[2] = 0;
+      int above = (y - top) * stride + 3;
+      int index = above + stride;
+      for (int k = 0; k < row.length; k++, above++, index++) {
+        rowSums[k % 3] += row[k];
+        if (this.ints != null) {
+          this.ints[index] = (int) (this.ints[above] + rowSums[k % 3]);
+        } else {
+          this.longs[index] = this.longs[above] + rowSums[k % 3];
+        }
+      }
+    }
+  }
+
+  // Return an entry of the table, whichever array holds it
+  private long entry(int index) {
+    return this.ints != null ? this.ints[index] : this.longs[index];
+  }
+
+  /**
+   * Return the width of the summed image.
+   *
+   * @return the number of columns.
+   */
+  public int getWidth() {
+    return this.width;
+  }
+
+  /**
+   * Return the height of the summed image.
+   *
+   * @return the number of rows.
+   */
+  public int getHeight() {
+    return this.height;
+  }
+
+  /**
+   * Return the sum of a band over a rectangle of the image. The rectangle is clipped to the image
+   * and to the rows of the table.
+   *
+   * @param band   0 for red, 1 for green and 2 for blue
+   * @param left   the first column of the rectangle
+   * @param top    the first row of the rectangle
+   * @param right  the column after the last column of the rectangle
+   * @param bottom the row after the last row of the rectangle
+   * @return the sum of the band over the rectangle, 0 if it does not overlap the image
+   * @throws IllegalArgumentException if the band is not 0, 1 or 2
+   */
+  public long sum(int band, int left, int top, int right, int bottom)
+          throws IllegalArgumentException {
+    if (band < 0 || band > 2) {
+      throw new IllegalArgumentException("Invalid band: " + band);
+    }
+    left = Math.max(0, left);
+    top = Math.max(this.top, top) - this.top;
+    right = Math.min(this.width, right);
+    bottom = Math.min(this.bottom, bottom) - this.top;
+    if (left >= right || top >= bottom) {
+      return 0;
+    }
+    int stride = 3 * (this.width + 1);
+    int topLeft = top * stride + 3 * left + band;
+    int topRight = top * stride + 3 * right + band;
+    int bottomLeft = bottom * stride + 3 * left + band;
+    int bottomRight = bottom * stride + 3 * right + band;
+    return entry(bottomRight) - entry(topRight) - entry(bottomLeft) + entry(topLeft);
+  }
+
+  /**
+   * Computes the mean of every band over a square window around each pixel of a row, rounded to
+   * the nearest integer. Only the pixels of the window inside the image are counted, and those
+   * must all be within the rows of the table.
+   *
+   * @param y      the row
+   * @param radius the number of pixels the window reaches in each direction
+   * @param dst    the array to fill with three samples per pixel
+   * @throws IllegalArgumentException if the radius is negative or the window leaves the rows of
+   *                                  the table
+   */
+  public void meanRow(int y, int radius, int[] dst) throws IllegalArgumentException {
+    if (radius < 0) {
+      throw new IllegalArgumentException("The radius cannot be negative");
+    }
+    // A window larger than the image covers all of it
+    radius = Math.min(radius, Math.max(this.width, this.height));
+    int stride = 3 * (this.width + 1);
+    int first = Math.max(0, y - radius);
+    int last = Math.min(this.height, y + radius + 1);
+    if (first < this.top || last > this.bottom) {
+      throw new IllegalArgumentException("The window of row " + y + " leaves the table");
+    }
+    int top = (first - this.top) * stride;
+    int bottom = (last - this.top) * stride;
+    long rows = (bottom - top) / stride;
+    for (int x = 0; x < this.width; x++) {
+      int left = 3 * Math.max(0, x - radius);
+      int right = 3 * Math.min(this.width, x + radius + 1);
+      long count = rows * (right - left) / 3;
+      for (int band = 0; band < 3; band++) {
+        long sum = entry(bottom + right + band) - entry(top + right + band)
+                - entry(bottom + left + band) + entry(top + left + band);
+        // Round half up, the sum is never negative
+        dst[3 * x + band] = (int) ((2 * sum + count) / (2 * count));
+      }
+    }
+  }
+
+  /**
+   * Return the approximate number of bytes held by the table.
+   *
+   * @return the size of the table in bytes.
+   */
+  public long estimatedBytes() {
+    return this.ints != null ? 4L * this.ints.length : 8L * this.longs.length;
+  }
+}
@@ -5,9 +5,24 @@ import java.util.List;
 /**
  * This class represents a kernel. This is a 2D array of integers. It is used to represent a filter
  * that can be applied to an image.
+ * A kernel that is the outer product of a column and a row vector is separable. Such a kernel is
+ * applied as a horizontal pass followed by a vertical pass, which takes 2k instead of k * k
+ * multiplications per pixel for a kernel of size k.
  */
 public class Kernel {
+
+  // Largest difference, relative to the largest weight, between a weight and the product of the
+  // vectors for the kernel to still count as separable
+  private static final double SEPARABLE_TOLERANCE = 1e-12;
+
   final List<List<Double>> filter;
+  // All weights in row-major order
+  private final KernelWeights weights;
+  // Weights of the vertical and horizontal pass, null if the kernel is not separable
+  private final KernelWeights columnWeights;
+  private final KernelWeights rowWeights;
+  // Prepared the first time a large kernel is applied and kept for later uses of the kernel
+  private FftConvolver fftConvolver;
 
   /**
    * This constructor creates a kernel from a list of lists of doubles.
@@ -26,5 +41,138 @@ public class Kernel {
       }
     }
     this.filter = filter;
+
+    double[] values = new double[rows * rows];
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < rows; j++) {
+        values[i * rows + j] = filter.get(i).get(j);
+      }
+    }
+    this.weights = new KernelWeights(values);
+
+    // The largest weight decides the vectors: its column scaled down by it gives the vertical
+    // pass, its row the horizontal pass. Every weight must then be the product of the two.
+    int pivotRow = 0;
+    int pivotCol = 0;
+    for (int i = 0; i < rows; i++) {
+      for (int j = 0; j < rows; j++) {
+        if (Math.abs(weight(i, j)) > Math.abs(weight(pivotRow, pivotCol))) {
+          pivotRow = i;
+          pivotCol = j;
+        }
+      }
+    }
+    double pivot = weight(pivotRow, pivotCol);
+    double[] column = new double[rows];
+    double[] row = new double[rows];
+    boolean separable = pivot != 0;
+    for (int i = 0; separable && i < rows; i++) {
+      column[i] = weight(i, pivotCol);
+      row[i] = weight(pivotRow, i) / pivot;
+    }
+    for (int i = 0; separable && i < rows; i++) {
+      for (int j = 0; separable && j < rows; j++) {
+        double difference = Math.abs(column[i] * row[j] - weight(i, j));
+        separable = difference <= SEPARABLE_TOLERANCE * Math.abs(pivot);
+      }
+    }
+    this.columnWeights = separable ? new KernelWeights(column) : null;
+    this.rowWeights = separable ? new KernelWeights(row) : null;
+  }
+
+  /**
+   * Return the size of this kernel, which is both its width and its height.
+   *
+   * @return the size of the kernel.
+   */
+  public int getSize() {
+    return this.filter.size();
+  }
+
+  /**
+   * Return true if this kernel is the outer product of a column and a row vector.
+   *
+   * @return whether the kernel is separable.
+   */
+  public boolean isSeparable() {
+    return this.rowWeights != null;
+  }
+
+  /**
+   * Return true if every weight of this kernel is an exact binary fraction, so that it can be
+   * applied in integer arithmetic with the same result.
+   *
+   * @return whether the kernel can be applied in fixed point.
+   */
+  public boolean isFixedPoint() {
+    return this.weights.isFixedPoint();
+  }
+
+  /**
+   * Return true if this kernel is applied through the Fourier transform rather than directly.
+   * That is the case for kernels that are not separable and at least FftConvolver.MIN_KERNEL_SIZE
+   * wide. Fixed point kernels are still applied directly to images whose samples are too deep
+   * for the transform to give the exact result.
+   *
+   * @return whether the kernel is applied through the Fourier transform.
+   */
+  public boolean usesFourierTransform() {
+    return !isSeparable() && getSize() >= FftConvolver.MIN_KERNEL_SIZE;
+  }
+
+  /**
+   * Return the convolver that applies this kernel through the Fourier transform, preparing it the
+   * first time.
+   *
+   * @return the convolver of the kernel.
+   * @throws IllegalStateException if the kernel is not applied through the Fourier transform
+   */
+  synchronized FftConvolver getFftConvolver() throws IllegalStateException {
+    if (!usesFourierTransform()) {
+      throw new IllegalStateException("The kernel is applied directly");
+    }
+    if (this.fftConvolver == null) {
+      this.fftConvolver = new FftConvolver(this.weights, getSize());
+    }
+    return this.fftConvolver;
+  }
+
+  /**
+   * Return the weights of this kernel in row-major order.
+   *
+   * @return the compiled weights of the kernel.
+   */
+  KernelWeights getWeights() {
+    return this.weights;
+  }
+
+  /**
+   * Return the weights of the vertical pass of a separable kernel, from the top row down.
+   *
+   * @return the column vector of the kernel.
+   * @throws IllegalStateException if the kernel is not separable
+   */
+  KernelWeights getColumnWeights() throws IllegalStateException {
+    if (!isSeparable()) {
+      throw new IllegalStateException("The kernel is not separable");
+    }
+    return this.columnWeights;
+  }
+
+  /**
+   * Return the weights of the horizontal pass of a separable kernel, from the left column on.
+   *
+   * @return the row vector of the kernel.
+   * @throws IllegalStateException if the kernel is not separable
+   */
+  KernelWeights getRowWeights() throws IllegalStateException {
+    if (!isSeparable()) {
+      throw new IllegalStateException("The kernel is not separable");
+    }
+    return this.rowWeights;
+  }
+
+  private double weight(int row, int col) {
+    return this.weights.values()[row * this.filter.size() + col];
   }
 }
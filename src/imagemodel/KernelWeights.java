@@ -0,0 +1,109 @@
+package imagemodel;
+
+/**
+ * This class represents the weights of a kernel, or of one pass of a separable kernel, compiled
+ * into a flat array. When every weight is an exact binary fraction, such as 1/16 or 1/8, the
+ * weights are also kept as integers scaled by 2^shift, so that a filter can accumulate integers
+ * and round once at the end with the same result as the floating point sum.
+ */
+final class KernelWeights {
+
+  // Largest power of two the weights may be scaled by
+  private static final int MAX_SHIFT = 24;
+  // Largest sum of the magnitudes of the scaled weights. Filtering 16 bit samples with two passes
+  // of such weights stays well within a long.
+  private static final long MAX_SCALED_SUM = 1L << 20;
+
+  private final double[] values;
+  // The weights scaled by 2^shift, null if they are not all exact binary fractions
+  private final int[] scaled;
+  private final int shift;
+
+  /**
+   * Compiles the given weights. The array is not copied.
+   *
+   * @param values the weights, in the order the filter applies them
+   */
+  KernelWeights(double[] values) {
+    this.values = values;
+
+    int exactShift = -1;
+    for (int s = 0; s <= MAX_SHIFT && exactShift < 0; s++) {
+      boolean exact = true;
+      for (double value : values) {
+        double scaledValue = Math.scalb(value, s);
+        exact = exact && Math.rint(scaledValue) == scaledValue;
+      }
+      if (exact) {
+        exactShift = s;
+      }
+    }
+
+    int[] scaledValues = null;
+    if (exactShift >= 0) {
+      long sum = 0;
+      for (double value : values) {
+        sum += (long) Math.abs(Math.scalb(value, exactShift));
+      }
+      if (sum <= MAX_SCALED_SUM) {
+        scaledValues = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+          scaledValues[i] = (int) Math.scalb(values[i], exactShift);
+        }
+      }
+    }
+    this.scaled = scaledValues;
+    this.shift = scaledValues == null ? -1 : exactShift;
+  }
+
+  /**
+   * Return the weights as doubles. The array must not be modified.
+   *
+   * @return the weights.
+   */
+  double[] values() {
+    return this.values;
+  }
+
+  /**
+   * Return true if the weights can be applied in fixed point integer arithmetic.
+   *
+   * @return whether the weights are exact binary fractions.
+   */
+  boolean isFixedPoint() {
+    return this.scaled != null;
+  }
+
+  /**
+   * Return the weights scaled by 2^getShift(). The array must not be modified.
+   *
+   * @return the scaled weights, or null if the weights are not exact binary fractions.
+   */
+  int[] scaled() {
+    return this.scaled;
+  }
+
+  /**
+   * Return the power of two the scaled weights are multiplied by.
+   *
+   * @return the shift of the scaled weights, or -1 if the weights are not exact binary fractions.
+   */
+  int getShift() {
+    return this.shift;
+  }
+
+  /**
+   * Rounds a sum of samples multiplied by scaled weights to the nearest integer of the unscaled
+   * sum, rounding halves up as Math.round does.
+   *
+   * @param sum   the scaled sum
+   * @param shift the total power of two the sum is scaled by
+   * @return the rounded sum
+   */
+  static long round(long sum, int shift) {
+    if (shift == 0) {
+      return sum;
+    }
+    return (sum + (1L << (shift - 1))) >> shift;
+  }
+}
@@ -0,0 +1,243 @@
+package imagemodel;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * This class represents a raster that keeps its pixels outside of the Java heap. Every pixel takes
+ * 3 bytes, stored in direct byte buffers or, for the mapped variant, in a memory mapped temporary
+ * file. The pixels are split into chunks of whole rows, so images can be larger than a single
+ * buffer. Off-heap pixels are never scanned or moved by the garbage collector.
+ */
+public class OffHeapRaster implements RasterInterface {
+
+  // Largest number of bytes held by a single buffer
+  private static final int MAX_CHUNK_BYTES = 1 << 30;
+
+  private final int width;
+  private final int height;
+  private final boolean mapped;
+  private final int rowsPerChunk;
+  private final ByteBuffer[] chunks;
+
+  /**
+   * Construct a new black raster in direct memory.
+   *
+   * @param width  the width of the raster
+   * @param height the height of the raster
+   */
+  public OffHeapRaster(int width, int height) {
+    this(width, height, false);
+  }
+
+  /**
+   * Construct a new black raster in direct memory or in a memory mapped temporary file.
+   *
+   * @param width  the width of the raster
+   * @param height the height of the raster
+   * @param mapped true to back the raster by a temporary file
+   * @throws IllegalStateException if the temporary file can not be created
+   */
+  public OffHeapRaster(int width, int height, boolean mapped) throws IllegalStateException {
+    if (width < 0 || height < 0) {
+      throw new IllegalArgumentException("The raster dimensions cannot be negative");
+    }
+    this.width = width;
+    this.height = height;
+    this.mapped = mapped;
+    this.rowsPerChunk = Math.max(1, MAX_CHUNK_BYTES / Math.max(1, 3 * width));
+    int chunkCount = (height + this.rowsPerChunk - 1) / this.rowsPerChunk;
+    this.chunks = new ByteBuffer[chunkCount];
+    if (mapped) {
+      mapChunks();
+    } else {
+      for (int c = 0; c < chunkCount; c++) {
+        this.chunks[c] = ByteBuffer.allocateDirect(chunkBytes(c));
+      }
+    }
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  /**
+   * Return true if the raster is backed by a memory mapped file.
+   *
+   * @return whether the raster is mapped.
+   */
+  public boolean isMapped() {
+    return this.mapped;
+  }
+
+  @Override
+  public int getSample(int row, int col, int band) {
+    return chunk(row).get(offset(row) + 3 * col + band) & 0xFF;
+  }
+
+  @Override
+  public void readRow(int row, int[] dst) {
+    ByteBuffer chunk = chunk(row);
+    int offset = offset(row);
+    for (int j = 0; j < this.width; j++, offset += 3) {
+      dst[j] = ((chunk.get(offset) & 0xFF) << 16) | ((chunk.get(offset + 1) & 0xFF) << 8)
+              | (chunk.get(offset + 2) & 0xFF);
+    }
+  }
+
+  @Override
+  public void writeRow(int row, int[] src) {
+    ByteBuffer chunk = chunk(row);
+    int offset = offset(row);
+    for (int j = 0; j < this.width; j++, offset += 3) {
+      chunk.put(offset, (byte) (src[j] >> 16));
+      chunk.put(offset + 1, (byte) (src[j] >> 8));
+      chunk.put(offset + 2, (byte) src[j]);
+    }
+  }
+
+  @Override
+  public void readSamples(int row, int[] dst) {
+    ByteBuffer chunk = chunk(row);
+    int offset = offset(row);
+    for (int k = 0; k < 3 * this.width; k++) {
+      dst[k] = chunk.get(offset + k) & 0xFF;
+    }
+  }
+
+  @Override
+  public void readSamples(int row, int col, int count, int[] dst) {
+    ByteBuffer chunk = chunk(row);
+    int offset = offset(row) + 3 * col;
+    for (int k = 0; k < 3 * count; k++) {
+      dst[k] = chunk.get(offset + k) & 0xFF;
+    }
+  }
+
+  @Override
+  public void writeSamples(int row, int[] src) {
+    ByteBuffer chunk = chunk(row);
+    int offset = offset(row);
+    for (int k = 0; k < 3 * this.width; k++) {
+      chunk.put(offset + k, (byte) Math.max(0, Math.min(255, src[k])));
+    }
+  }
+
+  @Override
+  public RasterInterface extractBand(int band) {
+    RasterInterface grey = createCompatible(this.width, this.height);
+    int[] row = new int[3 * this.width];
+    for (int i = 0; i < this.height; i++) {
+      readSamples(i, row);
+      for (int k = 0; k < row.length; k += 3) {
+        int value = row[k + band];
+        row[k] = value;
+        row[k + 1] = value;
+        row[k + 2] = value;
+      }
+      grey.writeSamples(i, row);
+    }
+    return grey;
+  }
+
+  @Override
+  public RasterInterface[] splitBands() {
+    RasterInterface[] bands = new RasterInterface[3];
+    for (int band = 0; band < 3; band++) {
+      bands[band] = createCompatible(this.width, this.height);
+    }
+    int[] row = new int[3 * this.width];
+    int[] grey = new int[3 * this.width];
+    for (int i = 0; i < this.height; i++) {
+      readSamples(i, row);
+      for (int band = 0; band < 3; band++) {
+        for (int k = 0; k < row.length; k += 3) {
+          int value = row[k + band];
+          grey[k] = value;
+          grey[k + 1] = value;
+          grey[k + 2] = value;
+        }
+        bands[band].writeSamples(i, grey);
+      }
+    }
+    return bands;
+  }
+
+  @Override
+  public RasterInterface createCompatible(int width, int height) {
+    return new OffHeapRaster(width, height, this.mapped);
+  }
+
+  @Override
+  public RasterInterface copy() {
+    OffHeapRaster copy = new OffHeapRaster(this.width, this.height, this.mapped);
+    for (int c = 0; c < this.chunks.length; c++) {
+      ByteBuffer source = this.chunks[c].duplicate();
+      source.clear();
+      ByteBuffer target = copy.chunks[c].duplicate();
+      target.clear();
+      target.put(source);
+    }
+    return copy;
+  }
+
+  @Override
+  public long estimatedBytes() {
+    return 3L * this.width * this.height;
+  }
+
+  @Override
+  public boolean isOffHeap() {
+    return true;
+  }
+
+  @Override
+  public String describe() {
+    return this.mapped ? "off-heap, memory mapped" : "off-heap, direct";
+  }
+
+  private ByteBuffer chunk(int row) {
+    return this.chunks[row / this.rowsPerChunk];
+  }
+
+  private int offset(int row) {
+    return (row % this.rowsPerChunk) * 3 * this.width;
+  }
+
+  private int chunkBytes(int chunk) {
+    int rows = Math.min(this.rowsPerChunk, this.height - chunk * this.rowsPerChunk);
+    return rows * 3 * this.width;
+  }
+
+  // Maps every chunk to its own region of a single temporary file
+  private void mapChunks() throws IllegalStateException {
+    try {
+      File file = File.createTempFile("image-raster", ".bin");
+      file.deleteOnExit();
+      try (RandomAccessFile storage = new RandomAccessFile(file, "rw")) {
+        storage.setLength(3L * this.width * this.height);
+        FileChannel channel = storage.getChannel();
+        long position = 0;
+        for (int c = 0; c < this.chunks.length; c++) {
+          int size = chunkBytes(c);
+          this.chunks[c] = channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+          position += size;
+        }
+      }
+      // The mappings stay valid after the file is closed. Where the platform allows it the file
+      // is removed right away, otherwise it is removed when the program exits.
+      file.delete();
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to create mapped image storage: " + e.getMessage());
+    }
+  }
+}
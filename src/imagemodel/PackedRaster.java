@@ -0,0 +1,166 @@
+package imagemodel;
+
+/**
+ * This class represents a raster that packs every pixel into a single int in the 0xRRGGBB format.
+ * It needs 4 bytes per pixel and keeps the whole image in one contiguous array.
+ */
+public class PackedRaster implements RasterInterface {
+
+  private final int width;
+  private final int height;
+  private final int[] pixels;
+
+  /**
+   * Construct a new black raster with the given dimensions.
+   *
+   * @param width  the width of the raster
+   * @param height the height of the raster
+   */
+  public PackedRaster(int width, int height) {
+    if (width < 0 || height < 0) {
+      throw new IllegalArgumentException("The raster dimensions cannot be negative");
+    }
+    this.width = width;
+    this.height = height;
+    this.pixels = new int[Math.multiplyExact(width, height)];
+  }
+
+  /**
+   * Construct a new raster around the given packed pixels. The pixels are expected in row-major
+   * order and are not copied.
+   *
+   * @param width  the width of the raster
+   * @param height the height of the raster
+   * @param pixels the packed 0xRRGGBB values of the pixels
+   */
+  public PackedRaster(int width, int height, int[] pixels) {
+    if (pixels == null) {
+      throw new IllegalArgumentException("The pixel array is null");
+    }
+    if (width < 0 || height < 0 || (long) width * height != pixels.length) {
+      throw new IllegalArgumentException("The pixel array is not of expected size");
+    }
+    this.width = width;
+    this.height = height;
+    this.pixels = pixels;
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  @Override
+  public int getSample(int row, int col, int band) {
+    return (this.pixels[row * this.width + col] >> (16 - 8 * band)) & 0xFF;
+  }
+
+  @Override
+  public void readRow(int row, int[] dst) {
+    System.arraycopy(this.pixels, row * this.width, dst, 0, this.width);
+  }
+
+  @Override
+  public void readRow(int row, int col, int count, int[] dst) {
+    System.arraycopy(this.pixels, row * this.width + col, dst, 0, count);
+  }
+
+  @Override
+  public void writeRow(int row, int[] src) {
+    int offset = row * this.width;
+    for (int j = 0; j < this.width; j++) {
+      this.pixels[offset + j] = src[j] & 0xFFFFFF;
+    }
+  }
+
+  @Override
+  public void readSamples(int row, int[] dst) {
+    int offset = row * this.width;
+    for (int j = 0, k = 0; j < this.width; j++, k += 3) {
+      int rgb = this.pixels[offset + j];
+      dst[k] = (rgb >> 16) & 0xFF;
+      dst[k + 1] = (rgb >> 8) & 0xFF;
+      dst[k + 2] = rgb & 0xFF;
+    }
+  }
+
+  @Override
+  public void readSamples(int row, int col, int count, int[] dst) {
+    int offset = row * this.width + col;
+    for (int j = 0, k = 0; j < count; j++, k += 3) {
+      int rgb = this.pixels[offset + j];
+      dst[k] = (rgb >> 16) & 0xFF;
+      dst[k + 1] = (rgb >> 8) & 0xFF;
+      dst[k + 2] = rgb & 0xFF;
+    }
+  }
+
+  @Override
+  public void writeSamples(int row, int[] src) {
+    int offset = row * this.width;
+    for (int j = 0, k = 0; j < this.width; j++, k += 3) {
+      this.pixels[offset + j] = (clamp(src[k]) << 16) | (clamp(src[k + 1]) << 8)
+              | clamp(src[k + 2]);
+    }
+  }
+
+  @Override
+  public RasterInterface extractBand(int band) {
+    int shift = 16 - 8 * band;
+    byte[] grey = new byte[this.pixels.length];
+    for (int i = 0; i < grey.length; i++) {
+      grey[i] = (byte) (this.pixels[i] >> shift);
+    }
+    return new PlanarRaster(this.width, this.height, grey);
+  }
+
+  @Override
+  public RasterInterface[] splitBands() {
+    byte[] red = new byte[this.pixels.length];
+    byte[] green = new byte[this.pixels.length];
+    byte[] blue = new byte[this.pixels.length];
+    for (int i = 0; i < this.pixels.length; i++) {
+      int pixel = this.pixels[i];
+      red[i] = (byte) (pixel >> 16);
+      green[i] = (byte) (pixel >> 8);
+      blue[i] = (byte) pixel;
+    }
+    return new RasterInterface[]{new PlanarRaster(this.width, this.height, red),
+        new PlanarRaster(this.width, this.height, green),
+        new PlanarRaster(this.width, this.height, blue)};
+  }
+
+  @Override
+  public RasterInterface createCompatible(int width, int height) {
+    return new PackedRaster(width, height);
+  }
+
+  @Override
+  public RasterInterface copy() {
+    return new PackedRaster(this.width, this.height, this.pixels.clone());
+  }
+
+  @Override
+  public long estimatedBytes() {
+    return 4L * this.pixels.length;
+  }
+
+  @Override
+  public boolean isOffHeap() {
+    return false;
+  }
+
+  @Override
+  public String describe() {
+    return "packed int[]";
+  }
+
+  private static int clamp(int value) {
+    return Math.max(0, Math.min(255, value));
+  }
+}
@@ -0,0 +1,109 @@
+package imagemodel;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class runs work on the rows of an image in parallel. The rows are split into bands that
+ * are processed by a shared ForkJoinPool. The number of threads can be changed at startup, and a
+ * parallelism of 1 runs everything on the calling thread.
+ */
+public class ParallelExecutor {
+
+  // Smallest number of rows worth handing to a separate task
+  private static final int MIN_ROWS_PER_TASK = 16;
+
+  private static ForkJoinPool pool = ForkJoinPool.commonPool();
+  private static int parallelism = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * This interface represents work done on a range of rows.
+   */
+  public interface RowRangeTask {
+
+    /**
+     * Processes the rows from start, inclusive, to end, exclusive.
+     *
+     * @param start the first row of the range
+     * @param end   the row after the last row of the range
+     */
+    void run(int start, int end);
+  }
+
+  /**
+   * Sets the number of threads used by image operations.
+   *
+   * @param threads the number of threads, 1 to run on the calling thread only
+   * @throws IllegalArgumentException if the number of threads is less than 1
+   */
+  public static synchronized void setParallelism(int threads) throws IllegalArgumentException {
+    if (threads < 1) {
+      throw new IllegalArgumentException("The number of threads must be at least 1");
+    }
+    // The previous pool is not shut down, as an operation that started before this call may
+    // still be running in it. Its idle worker threads end on their own once it is unused.
+    pool = threads == 1 ? ForkJoinPool.commonPool() : new ForkJoinPool(threads);
+    parallelism = threads;
+  }
+
+  /**
+   * Return the number of threads used by image operations.
+   *
+   * @return the parallelism.
+   */
+  public static synchronized int getParallelism() {
+    return parallelism;
+  }
+
+  /**
+   * Runs the task over all the rows of an image, splitting them into bands that run in parallel.
+   * Every row is passed to the task exactly once, and the method returns after all the bands are
+   * done. Tasks must only write to the rows of their own band.
+   *
+   * @param rows the number of rows
+   * @param task the work to do on a band of rows
+   */
+  public static void forEachRowRange(int rows, RowRangeTask task) {
+    ForkJoinPool current;
+    int threads;
+    synchronized (ParallelExecutor.class) {
+      current = pool;
+      threads = parallelism;
+    }
+    if (threads <= 1 || rows <= MIN_ROWS_PER_TASK) {
+      task.run(0, rows);
+      return;
+    }
+    // A few bands per thread keeps the threads busy when some bands finish early
+    int grain = Math.max(MIN_ROWS_PER_TASK, (rows + 4 * threads - 1) / (4 * threads));
+    current.invoke(new RowRangeAction(0, rows, grain, task));
+  }
+
+  // Splits a range of rows in halves until it is small enough to run
+  private static class RowRangeAction extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final int start;
+    private final int end;
+    private final int grain;
+    private final RowRangeTask task;
+
+    RowRangeAction(int start, int end, int grain, RowRangeTask task) {
+      this.start = start;
+      this.end = end;
+      this.grain = grain;
+      this.task = task;
+    }
+
+    @Override
+    protected void compute() {
+      if (this.end - this.start <= this.grain) {
+        this.task.run(this.start, this.end);
+        return;
+      }
+      int mid = (this.start + this.end) >>> 1;
+      invokeAll(new RowRangeAction(this.start, mid, this.grain, this.task),
+              new RowRangeAction(mid, this.end, this.grain, this.task));
+    }
+  }
+}
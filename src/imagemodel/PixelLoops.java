@@ -0,0 +1,151 @@
+package imagemodel;
+
+/**
+ * This class holds the inner loops of filters, and of brightening images deeper than 8 bits,
+ * that run over whole rows. Each loop runs over a contiguous array with the same arithmetic for
+ * every element and no branches, a shape the just-in-time compiler may turn into SIMD
+ * instructions. Every loop computes exactly what the per-pixel code in ImageImpl computes, in
+ * the same order, so the backend never changes a result, only the shape of the loops.
+ * The backend is ROW_RUNS unless the imagemodel.loops system property is row-runs or per-pixel,
+ * and can be changed with setBackend.
+ */
+public class PixelLoops {
+
+  /**
+   * This enum represents the code that runs the inner loops of image operations.
+   */
+  public enum Backend {
+    /**
+     * Loops over whole rows of samples, one tap or weight at a time.
+     */
+    ROW_RUNS,
+    /**
+     * Loops over the pixels of a row, summing every tap of one pixel at a time.
+     */
+    PER_PIXEL
+  }
+
+  // Read by every row of every operation, so it is volatile rather than guarded by a lock
+  private static volatile Backend backend = Backend.ROW_RUNS;
+  private static volatile String reason = "default";
+
+  static {
+    String property = System.getProperty("imagemodel.loops", "");
+    for (Backend value : Backend.values()) {
+      if (property.equalsIgnoreCase(value.name().replace('_', '-'))) {
+        backend = value;
+        reason = "set by imagemodel.loops";
+      }
+    }
+  }
+
+  /**
+   * Return the backend that runs the inner loops.
+   *
+   * @return the current backend.
+   */
+  public static Backend getBackend() {
+    return backend;
+  }
+
+  /**
+   * Return a short description of the backend and how it was chosen.
+   *
+   * @return the description of the backend.
+   */
+  public static String describe() {
+    return backend.name().toLowerCase().replace('_', '-') + " (" + reason + ")";
+  }
+
+  /**
+   * Sets the backend that runs the inner loops.
+   *
+   * @param newBackend the backend to use
+   * @throws IllegalArgumentException if the backend is null
+   */
+  public static void setBackend(Backend newBackend) throws IllegalArgumentException {
+    if (newBackend == null) {
+      throw new IllegalArgumentException("The backend cannot be null");
+    }
+    backend = newBackend;
+    reason = "set explicitly";
+  }
+
+  static boolean usesRowRuns() {
+    return backend == Backend.ROW_RUNS;
+  }
+
+  /**
+   * Adds the value to every sample of the row and clamps the results to 0 to max.
+   */
+  static void addClamped(int[] row, int value, int max) {
+    for (int k = 0; k < row.length; k++) {
+      row[k] = Math.max(0, Math.min(max, row[k] + value));
+    }
+  }
+
+  /**
+   * Adds size taps of a kernel row to the sums of a row of samples: for every tap fj and every
+   * sample k, sums[k] += weights[offset + fj] * source[k + 3 * fj].
+   */
+  static void addTaps(double[] sums, int[] source, double[] weights, int offset, int size) {
+    for (int fj = 0; fj < size; fj++) {
+      double weight = weights[offset + fj];
+      int shift = 3 * fj;
+      for (int k = 0; k < sums.length; k++) {
+        sums[k] += weight * source[k + shift];
+      }
+    }
+  }
+
+  /**
+   * Same as addTaps for weights scaled to integers.
+   */
+  static void addTaps(long[] sums, int[] source, int[] weights, int offset, int size) {
+    for (int fj = 0; fj < size; fj++) {
+      long weight = weights[offset + fj];
+      int shift = 3 * fj;
+      for (int k = 0; k < sums.length; k++) {
+        sums[k] += weight * source[k + shift];
+      }
+    }
+  }
+
+  /**
+   * Adds the source multiplied by the weight to the sums.
+   */
+  static void addScaled(double[] sums, double[] source, double weight) {
+    for (int k = 0; k < sums.length; k++) {
+      sums[k] += weight * source[k];
+    }
+  }
+
+  /**
+   * Same as addScaled for integer sums.
+   */
+  static void addScaled(long[] sums, long[] source, long weight) {
+    for (int k = 0; k < sums.length; k++) {
+      sums[k] += weight * source[k];
+    }
+  }
+
+  /**
+   * Rounds the sums to the nearest integer, clamps them to 0 to max and stores them at the offset
+   * of the destination.
+   */
+  static void store(double[] sums, int[] destination, int offset, int max) {
+    for (int k = 0; k < sums.length; k++) {
+      destination[offset + k] = (int) Math.max(0, Math.min(max, Math.round(sums[k])));
+    }
+  }
+
+  /**
+   * Same as store for sums scaled by 2^shift, which are rounded as KernelWeights.round does.
+   */
+  static void store(long[] sums, int shift, int[] destination, int offset, int max) {
+    long half = shift == 0 ? 0 : 1L << (shift - 1);
+    for (int k = 0; k < sums.length; k++) {
+      destination[offset + k] = (int) Math.max(0, Math.min(max, (sums[k] + half) >> shift));
+    }
+  }
+}
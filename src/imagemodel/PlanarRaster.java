@@ -0,0 +1,213 @@
+package imagemodel;
+
+/**
+ * This class represents a raster that stores every color channel in its own byte array. It needs
+ * 3 bytes per pixel, and a single byte per pixel for greyscale images whose three planes are the
+ * same array. Channel operations such as rgb-split and rgb-combine only copy whole planes.
+ */
+public class PlanarRaster implements RasterInterface {
+
+  private final int width;
+  private final int height;
+  private byte[] red;
+  private byte[] green;
+  private byte[] blue;
+
+  /**
+   * Construct a new black raster with the given dimensions.
+   *
+   * @param width  the width of the raster
+   * @param height the height of the raster
+   */
+  public PlanarRaster(int width, int height) {
+    this(width, height, new byte[Math.multiplyExact(width, height)],
+            new byte[width * height], new byte[width * height]);
+  }
+
+  /**
+   * Construct a new greyscale raster that uses the given plane for all three channels.
+   * The plane is not copied.
+   *
+   * @param width  the width of the raster
+   * @param height the height of the raster
+   * @param grey   the unsigned values of the pixels in row-major order
+   */
+  public PlanarRaster(int width, int height, byte[] grey) {
+    this(width, height, grey, grey, grey);
+  }
+
+  /**
+   * Construct a new raster around the given planes. The planes are not copied and may be the
+   * same array.
+   *
+   * @param width  the width of the raster
+   * @param height the height of the raster
+   * @param red    the unsigned red values of the pixels in row-major order
+   * @param green  the unsigned green values of the pixels in row-major order
+   * @param blue   the unsigned blue values of the pixels in row-major order
+   */
+  public PlanarRaster(int width, int height, byte[] red, byte[] green, byte[] blue) {
+    if (red == null || green == null || blue == null) {
+      throw new IllegalArgumentException("The planes cannot be null");
+    }
+    if (width < 0 || height < 0) {
+      throw new IllegalArgumentException("The raster dimensions cannot be negative");
+    }
+    long size = (long) width * height;
+    if (red.length != size || green.length != size || blue.length != size) {
+      throw new IllegalArgumentException("The planes are not of expected size");
+    }
+    this.width = width;
+    this.height = height;
+    this.red = red;
+    this.green = green;
+    this.blue = blue;
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  @Override
+  public int getSample(int row, int col, int band) {
+    return getPlane(band)[row * this.width + col] & 0xFF;
+  }
+
+  @Override
+  public void readRow(int row, int[] dst) {
+    int offset = row * this.width;
+    for (int j = 0; j < this.width; j++) {
+      dst[j] = ((this.red[offset + j] & 0xFF) << 16) | ((this.green[offset + j] & 0xFF) << 8)
+              | (this.blue[offset + j] & 0xFF);
+    }
+  }
+
+  @Override
+  public void writeRow(int row, int[] src) {
+    separatePlanes();
+    int offset = row * this.width;
+    for (int j = 0; j < this.width; j++) {
+      this.red[offset + j] = (byte) (src[j] >> 16);
+      this.green[offset + j] = (byte) (src[j] >> 8);
+      this.blue[offset + j] = (byte) src[j];
+    }
+  }
+
+  @Override
+  public void readSamples(int row, int[] dst) {
+    int offset = row * this.width;
+    for (int j = 0, k = 0; j < this.width; j++, k += 3) {
+      dst[k] = this.red[offset + j] & 0xFF;
+      dst[k + 1] = this.green[offset + j] & 0xFF;
+      dst[k + 2] = this.blue[offset + j] & 0xFF;
+    }
+  }
+
+  @Override
+  public void readSamples(int row, int col, int count, int[] dst) {
+    int offset = row * this.width + col;
+    for (int j = 0, k = 0; j < count; j++, k += 3) {
+      dst[k] = this.red[offset + j] & 0xFF;
+      dst[k + 1] = this.green[offset + j] & 0xFF;
+      dst[k + 2] = this.blue[offset + j] & 0xFF;
+    }
+  }
+
+  @Override
+  public void writeSamples(int row, int[] src) {
+    separatePlanes();
+    int offset = row * this.width;
+    for (int j = 0, k = 0; j < this.width; j++, k += 3) {
+      this.red[offset + j] = (byte) clamp(src[k]);
+      this.green[offset + j] = (byte) clamp(src[k + 1]);
+      this.blue[offset + j] = (byte) clamp(src[k + 2]);
+    }
+  }
+
+  @Override
+  public RasterInterface extractBand(int band) {
+    return new PlanarRaster(this.width, this.height, getPlane(band).clone());
+  }
+
+  @Override
+  public RasterInterface createCompatible(int width, int height) {
+    return new PlanarRaster(width, height);
+  }
+
+  @Override
+  public RasterInterface copy() {
+    if (isGreyscale()) {
+      return new PlanarRaster(this.width, this.height, this.red.clone());
+    }
+    return new PlanarRaster(this.width, this.height, this.red.clone(), this.green.clone(),
+            this.blue.clone());
+  }
+
+  @Override
+  public long estimatedBytes() {
+    return isGreyscale() ? this.red.length : 3L * this.red.length;
+  }
+
+  @Override
+  public boolean isOffHeap() {
+    return false;
+  }
+
+  @Override
+  public String describe() {
+    return isGreyscale() ? "planar byte[], greyscale" : "planar byte[]";
+  }
+
+  /**
+   * Return true if all three channels share the same plane.
+   *
+   * @return whether this raster is known to be greyscale.
+   */
+  boolean isGreyscale() {
+    return this.red == this.green && this.green == this.blue;
+  }
+
+  /**
+   * Return the plane backing the given channel. The plane is not copied.
+   *
+   * @param band 0 for red, 1 for green and 2 for blue.
+   * @return the plane of the channel.
+   */
+  byte[] getPlane(int band) {
+    switch (band) {
+      case 0:
+        return this.red;
+      case 1:
+        return this.green;
+      case 2:
+        return this.blue;
+      default:
+        throw new IllegalArgumentException("Invalid band: " + band);
+    }
+  }
+
+  @Override
+  public void prepareForWrite() {
+    separatePlanes();
+  }
+
+  // Gives each channel its own plane before a write, so that shared planes are never modified
+  private void separatePlanes() {
+    if (this.green == this.red || this.green == this.blue) {
+      this.green = this.green.clone();
+    }
+    if (this.blue == this.red) {
+      this.blue = this.blue.clone();
+    }
+  }
+
+  private static int clamp(int value) {
+    return Math.max(0, Math.min(255, value));
+  }
+}
@@ -0,0 +1,212 @@
+package imagemodel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class builds a chain of point operations on an image and applies all of them in a single
+ * pass. Every row of the source is read once and goes through all the operations in the order in
+ * which they were added before it is written to the result, so only one new image is created.
+ * Each operation clamps its results exactly as the matching method of ImageInterface does, so
+ * the result is the same as applying the operations one after the other.
+ * Adjacent color transforms can also be folded into the product of their matrices, so that each
+ * pixel goes through one matrix instead of several, as the folding of the pipeline says.
+ * For example: image.pipeline().brighten(20).sepia(sepia).greyscale("luma-component").apply().
+ */
+public class PointPipeline {
+
+  /**
+   * This enum represents when adjacent color transforms of a pipeline are folded into one.
+   */
+  public enum Folding {
+    /**
+     * Every transform is applied on its own, so the result is the same as applying the
+     * operations one after the other.
+     */
+    NONE,
+    /**
+     * Transforms are folded only where the first one can never clamp a result. The folded
+     * transform skips the rounding in between, so a sample can differ by the rounding of the
+     * intermediate result, but never by clamping.
+     */
+    STRICT,
+    /**
+     * All adjacent transforms are folded, as if nothing was clamped in between.
+     */
+    ALWAYS
+  }
+
+  private final ImageImpl image;
+  private final List<RowOperation> operations = new ArrayList<>();
+  // The color transform of each operation, null for the operations that are not transforms
+  private final List<ColorTransform> transforms = new ArrayList<>();
+  private Folding folding = Folding.NONE;
+
+  /**
+   * Construct an empty pipeline on the given image.
+   *
+   * @param image the image the operations are applied to
+   */
+  PointPipeline(ImageImpl image) {
+    this.image = image;
+  }
+
+  /**
+   * Adds a brighten operation to the pipeline.
+   *
+   * @param value the value to add to every component, negative to darken
+   * @return this pipeline
+   */
+  public PointPipeline brighten(int value) {
+    this.operations.add(this.image.brightenOperation(value));
+    this.transforms.add(null);
+    return this;
+  }
+
+  /**
+   * Adds a lookup table to the pipeline.
+   *
+   * @param lut the lookup table to map every sample through
+   * @return this pipeline
+   * @throws IllegalArgumentException if the table is null or maps a different range of values
+   */
+  public PointPipeline lut(ChannelLut lut) throws IllegalArgumentException {
+    this.operations.add(this.image.lutOperation(lut));
+    this.transforms.add(null);
+    return this;
+  }
+
+  /**
+   * Adds a color transform to the pipeline.
+   *
+   * @param transform the color transform to apply
+   * @return this pipeline
+   * @throws IllegalArgumentException if the transform is null
+   */
+  public PointPipeline colorTransform(ColorTransform transform) throws IllegalArgumentException {
+    this.operations.add(this.image.transformOperation(transform));
+    this.transforms.add(transform);
+    return this;
+  }
+
+  /**
+   * Adds a sepia transform to the pipeline.
+   *
+   * @param sepia the sepia color transform
+   * @return this pipeline
+   * @throws IllegalArgumentException if the transform is null
+   */
+  public PointPipeline sepia(ColorTransform sepia) throws IllegalArgumentException {
+    return colorTransform(sepia);
+  }
+
+  /**
+   * Adds a greyscale transform to the pipeline.
+   *
+   * @param greyscale the greyscale color transform
+   * @return this pipeline
+   * @throws IllegalArgumentException if the transform is null
+   */
+  public PointPipeline greyscale(ColorTransform greyscale) throws IllegalArgumentException {
+    return colorTransform(greyscale);
+  }
+
+  /**
+   * Adds a greyscale operation on the given component to the pipeline.
+   *
+   * @param component the component, such as red-component or luma-component
+   * @return this pipeline
+   * @throws IllegalArgumentException if the component is not known
+   */
+  public PointPipeline greyscale(String component) throws IllegalArgumentException {
+    this.operations.add(this.image.componentOperation(component));
+    this.transforms.add(null);
+    return this;
+  }
+
+  /**
+   * Sets when adjacent color transforms of the pipeline are folded into one. No transforms are
+   * folded unless this is called.
+   *
+   * @param folding when to fold adjacent transforms
+   * @return this pipeline
+   * @throws IllegalArgumentException if the folding is null
+   */
+  public PointPipeline fold(Folding folding) throws IllegalArgumentException {
+    if (folding == null) {
+      throw new IllegalArgumentException("Folding is null");
+    }
+    this.folding = folding;
+    return this;
+  }
+
+  /**
+   * Applies all the operations of the pipeline to the image in a single pass.
+   *
+   * @return a new image with all the operations applied, or a copy of the image if the pipeline
+   *         is empty
+   */
+  public ImageInterface apply() {
+    if (this.operations.isEmpty()) {
+      return new ImageImpl(this.image);
+    }
+    RowOperation[] chain = foldTransforms().toArray(new RowOperation[0]);
+    if (chain.length == 1) {
+      return this.image.applyRowOperation(chain[0]);
+    }
+    return this.image.applyRowOperation(row -> {
+      for (RowOperation operation : chain) {
+        operation.apply(row);
+      }
+    });
+  }
+
+  /**
+   * Applies all the operations of the pipeline in a single pass and writes the results over the
+   * pixels of the image itself, so no new image is allocated. Use this only when the image
+   * before the operations is no longer needed.
+   *
+   * @return the image of the pipeline, with all the operations applied
+   */
+  public ImageInterface applyInPlace() {
+    List<RowOperation> chain = foldTransforms();
+    if (!chain.isEmpty()) {
+      RowOperation[] operations = chain.toArray(new RowOperation[0]);
+      this.image.applyRowOperationInPlace(row -> {
+        for (RowOperation operation : operations) {
+          operation.apply(row);
+        }
+      });
+    }
+    return this.image;
+  }
+
+  // Return the operations of the pipeline with adjacent transforms folded as the folding says
+  private List<RowOperation> foldTransforms() {
+    if (this.folding == Folding.NONE) {
+      return this.operations;
+    }
+    int max = this.image.getMaxValue();
+    List<RowOperation> folded = new ArrayList<>();
+    ColorTransform pending = null;
+    for (int i = 0; i < this.operations.size(); i++) {
+      ColorTransform transform = this.transforms.get(i);
+      if (pending != null && transform != null
+              && (this.folding == Folding.ALWAYS || pending.staysInRange(max))) {
+        pending = pending.compose(transform);
+        continue;
+      }
+      if (pending != null) {
+        folded.add(this.image.transformOperation(pending));
+      }
+      pending = transform;
+      if (transform == null) {
+        folded.add(this.operations.get(i));
+      }
+    }
+    if (pending != null) {
+      folded.add(this.image.transformOperation(pending));
+    }
+    return folded;
+  }
+}
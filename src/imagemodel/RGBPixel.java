@@ -42,17 +42,17 @@ public class RGBPixel implements PixelInterface {
    */
   @Override
   public int getValue() {
-    return Math.max(red, Math.max(green, blue));
+    return value(red, green, blue);
   }
 
   @Override
   public int getIntensity() {
-    return (red + green + blue) / 3;
+    return intensity(red, green, blue);
   }
 
   @Override
   public int getLuma() {
-    return (int) Math.round(0.2126 * red + 0.7152 * green + 0.0722 * blue);
+    return luma(red, green, blue);
   }
 
   @Override
@@ -88,4 +88,17 @@ public class RGBPixel implements PixelInterface {
             (int) Math.round(blue + value)
     );
   }
+
+  // The component formulas are shared with the operations that work on raw samples
+  static int value(int red, int green, int blue) {
+    return Math.max(red, Math.max(green, blue));
+  }
+
+  static int intensity(int red, int green, int blue) {
+    return (red + green + blue) / 3;
+  }
+
+  static int luma(int red, int green, int blue) {
+    return (int) Math.round(0.2126 * red + 0.7152 * green + 0.0722 * blue);
+  }
 }
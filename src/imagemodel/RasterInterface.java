@@ -0,0 +1,164 @@
+package imagemodel;
+
+/**
+ * This interface represents the storage behind an image. A raster holds the red, green and blue
+ * samples of every pixel and gives row level access to them, so that the operations in ImageImpl
+ * never need one object per pixel.
+ * Rows are numbered from the top of the image and columns from the left.
+ */
+public interface RasterInterface {
+
+  /**
+   * Return the width of the raster in pixels.
+   *
+   * @return the number of columns.
+   */
+  int getWidth();
+
+  /**
+   * Return the height of the raster in pixels.
+   *
+   * @return the number of rows.
+   */
+  int getHeight();
+
+  /**
+   * Return a single sample of the raster.
+   *
+   * @param row  the row of the pixel.
+   * @param col  the column of the pixel.
+   * @param band 0 for red, 1 for green and 2 for blue.
+   * @return the value of the sample.
+   */
+  int getSample(int row, int col, int band);
+
+  /**
+   * Copies a row of the raster into the given array as packed 0xRRGGBB values.
+   *
+   * @param row the row to read.
+   * @param dst the array to fill. Must hold at least width elements.
+   */
+  void readRow(int row, int[] dst);
+
+  /**
+   * Copies part of a row of the raster into the given array as packed 0xRRGGBB values. Rasters
+   * that do not hold their rows contiguously only need to produce the requested columns.
+   *
+   * @param row   the row to read.
+   * @param col   the first column to read.
+   * @param count the number of columns to read.
+   * @param dst   the array to fill. Must hold at least count elements.
+   */
+  default void readRow(int row, int col, int count, int[] dst) {
+    int[] values = new int[getWidth()];
+    readRow(row, values);
+    System.arraycopy(values, col, dst, 0, count);
+  }
+
+  /**
+   * Overwrites a row of the raster with the given packed 0xRRGGBB values.
+   *
+   * @param row the row to write.
+   * @param src the packed values. Must hold at least width elements.
+   */
+  void writeRow(int row, int[] src);
+
+  /**
+   * Copies a row of the raster into the given array as interleaved samples. The red, green and
+   * blue samples of column j are stored at 3 * j, 3 * j + 1 and 3 * j + 2 respectively.
+   *
+   * @param row the row to read.
+   * @param dst the array to fill. Must hold at least 3 * width elements.
+   */
+  void readSamples(int row, int[] dst);
+
+  /**
+   * Copies part of a row of the raster into the given array as interleaved samples. The samples of
+   * column col are stored at the start of the array.
+   *
+   * @param row   the row to read.
+   * @param col   the first column to read.
+   * @param count the number of columns to read.
+   * @param dst   the array to fill. Must hold at least 3 * count elements.
+   */
+  default void readSamples(int row, int col, int count, int[] dst) {
+    int[] samples = new int[3 * getWidth()];
+    readSamples(row, samples);
+    System.arraycopy(samples, 3 * col, dst, 0, 3 * count);
+  }
+
+  /**
+   * Overwrites a row of the raster with the given interleaved samples. Samples that can not be
+   * represented by the raster are clamped.
+   *
+   * @param row the row to write.
+   * @param src the interleaved samples. Must hold at least 3 * width elements.
+   */
+  void writeSamples(int row, int[] src);
+
+  /**
+   * Prepares the raster for writes from several threads at once, each to rows of its own. Rasters
+   * that set up their storage on the first write, such as flipped views and greyscale planes, do
+   * it here, so that concurrent writes never race to do it. Other rasters have nothing to do.
+   */
+  default void prepareForWrite() {
+  }
+
+  /**
+   * Creates a greyscale raster in which all three channels hold a copy of the given channel of
+   * this raster.
+   *
+   * @param band 0 for red, 1 for green and 2 for blue.
+   * @return a new greyscale raster.
+   */
+  RasterInterface extractBand(int band);
+
+  /**
+   * Creates one greyscale raster for each channel of this raster, as extractBand does for each
+   * band. Rasters that hold the channels of a pixel together override this to read every pixel
+   * once rather than once per channel.
+   *
+   * @return the red, green and blue rasters, in that order.
+   */
+  default RasterInterface[] splitBands() {
+    return new RasterInterface[]{extractBand(0), extractBand(1), extractBand(2)};
+  }
+
+  /**
+   * Creates a new, black raster of the same kind as this one with the given dimensions.
+   *
+   * @param width  the width of the new raster.
+   * @param height the height of the new raster.
+   * @return a new raster.
+   */
+  RasterInterface createCompatible(int width, int height);
+
+  /**
+   * Creates an independent copy of this raster.
+   *
+   * @return a new raster with the same pixels as this one.
+   */
+  RasterInterface copy();
+
+  /**
+   * Return the approximate number of bytes of pixel data held by this raster. Views only count
+   * the pixels they hold themselves, not those of the raster they read from.
+   *
+   * @return the size of the pixel data in bytes.
+   */
+  long estimatedBytes();
+
+  /**
+   * Return true if the pixel data of this raster is kept outside of the Java heap.
+   *
+   * @return whether the pixels are off-heap.
+   */
+  boolean isOffHeap();
+
+  /**
+   * Return a short, human readable description of how this raster stores its pixels.
+   *
+   * @return the description of the representation.
+   */
+  String describe();
+}
@@ -0,0 +1,141 @@
+package imagemodel;
+
+/**
+ * This class represents a Gaussian filter of any standard deviation computed recursively, as
+ * described by Young and van Vliet. Each pass runs a third order filter forward and then backward
+ * over a line of samples, so every sample costs the same few multiplications whatever the
+ * standard deviation. Before the first sample of a line the filter behaves as if the line
+ * continued with its edge sample, so the borders of an image keep their brightness.
+ */
+final class RecursiveGaussian {
+
+  /**
+   * Smallest standard deviation the recursive coefficients are defined for.
+   */
+  static final double MIN_SIGMA = 0.5;
+
+  private final double scale;
+  private final double a1;
+  private final double a2;
+  private final double a3;
+
+  /**
+   * Computes the coefficients of the filter.
+   *
+   * @param sigma the standard deviation of the Gaussian in pixels
+   * @throws IllegalArgumentException if sigma is less than MIN_SIGMA or not a number
+   */
+  RecursiveGaussian(double sigma) throws IllegalArgumentException {
+    if (!(sigma >= MIN_SIGMA) || Double.isInfinite(sigma)) {
+      throw new IllegalArgumentException("Sigma must be a number of at least " + MIN_SIGMA);
+    }
+    double q = sigma >= 2.5
+            ? 0.98711 * sigma - 0.96330
+            : 3.97156 - 4.14554 * Math.sqrt(1 - 0.26891 * sigma);
+    double q2 = q * q;
+    double q3 = q2 * q;
+    double b0 = 1.57825 + 2.44413 * q + 1.4281 * q2 + 0.422205 * q3;
+    double b1 = 2.44413 * q + 2.85619 * q2 + 1.26661 * q3;
+    double b2 = -(1.4281 * q2 + 1.26661 * q3);
+    double b3 = 0.422205 * q3;
+    this.a1 = b1 / b0;
+    this.a2 = b2 / b0;
+    this.a3 = b3 / b0;
+    this.scale = 1 - this.a1 - this.a2 - this.a3;
+  }
+
+  /**
+   * Filters count samples in place, starting at offset and stride apart.
+   *
+   * @param data   the samples
+   * @param offset the index of the first sample
+   * @param stride the distance between two samples
+   * @param count  the number of samples
+   */
+  void filter(double[] data, int offset, int stride, int count) {
+    if (count == 0) {
+      return;
+    }
+    // Forward
+    double p1 = data[offset];
+    double p2 = p1;
+    double p3 = p1;
+    for (int i = 0, k = offset; i < count; i++, k += stride) {
+      double value = this.scale * data[k] + this.a1 * p1 + this.a2 * p2 + this.a3 * p3;
+      data[k] = value;
+      p3 = p2;
+      p2 = p1;
+      p1 = value;
+    }
+    // Backward
+    int last = offset + (count - 1) * stride;
+    p1 = data[last];
+    p2 = p1;
+    p3 = p1;
+    for (int i = 0, k = last; i < count; i++, k -= stride) {
+      double value = this.scale * data[k] + this.a1 * p1 + this.a2 * p2 + this.a3 * p3;
+      data[k] = value;
+      p3 = p2;
+      p2 = p1;
+      p1 = value;
+    }
+  }
+
+  /**
+   * Filters the columns from start, inclusive, to end, exclusive, of a row-major plane in place.
+   * All the columns of the range advance together one row at a time, so the plane is read row by
+   * row rather than down one column at a time.
+   *
+   * @param plane  the samples of the plane
+   * @param width  the number of columns of the plane
+   * @param height the number of rows of the plane
+   * @param start  the first column to filter
+   * @param end    the column after the last column to filter
+   */
+  void filterColumns(float[] plane, int width, int height, int start, int end) {
+    int columns = end - start;
+    if (columns <= 0 || height == 0) {
+      return;
+    }
+    double[] p1 = new double[columns];
+    double[] p2 = new double[columns];
+    double[] p3 = new double[columns];
+
+    // Forward
+    for (int j = 0; j < columns; j++) {
+      p1[j] = plane[start + j];
+      p2[j] = p1[j];
+      p3[j] = p1[j];
+    }
+    for (int i = 0; i < height; i++) {
+      int row = i * width + start;
+      for (int j = 0; j < columns; j++) {
+        double value = this.scale * plane[row + j] + this.a1 * p1[j] + this.a2 * p2[j]
+                + this.a3 * p3[j];
+        plane[row + j] = (float) value;
+        p3[j] = p2[j];
+        p2[j] = p1[j];
+        p1[j] = value;
+      }
+    }
+
+    // Backward
+    int lastRow = (height - 1) * width + start;
+    for (int j = 0; j < columns; j++) {
+      p1[j] = plane[lastRow + j];
+      p2[j] = p1[j];
+      p3[j] = p1[j];
+    }
+    for (int i = height - 1; i >= 0; i--) {
+      int row = i * width + start;
+      for (int j = 0; j < columns; j++) {
+        double value = this.scale * plane[row + j] + this.a1 * p1[j] + this.a2 * p2[j]
+                + this.a3 * p3[j];
+        plane[row + j] = (float) value;
+        p3[j] = p2[j];
+        p2[j] = p1[j];
+        p1[j] = value;
+      }
+    }
+  }
+}
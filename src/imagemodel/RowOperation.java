@@ -0,0 +1,15 @@
+package imagemodel;
+
+/**
+ * This interface represents an operation that changes every pixel of a row independently of the
+ * other pixels, such as brighten or a color transform.
+ */
+interface RowOperation {
+
+  /**
+   * Applies the operation in place to a row of interleaved red, green and blue samples.
+   *
+   * @param row the samples of the row, three per pixel.
+   */
+  void apply(int[] row);
+}
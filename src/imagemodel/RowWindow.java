@@ -0,0 +1,129 @@
+package imagemodel;
+
+import java.util.Arrays;
+
+/**
+ * This class represents the rows of a source raster that a kernel covers while it slides down a
+ * region. The rows are padded by half the kernel size on both sides, and the pixels outside of
+ * the source are filled in as the edge mode says, so filter loops never check bounds.
+ * The rows are kept in a ring buffer of one row per kernel row. Moving the window down by one
+ * row reads only the row that enters it, into the array of the row that leaves it, so filtering
+ * a region of any height reads every source row once and holds only size rows.
+ */
+final class RowWindow {
+
+  private final RasterInterface source;
+  private final EdgeMode edgeMode;
+  private final int cVal;
+  private final int first;
+  private final int paddedWidth;
+  // Columns of the padded row inside of the source, which are read as a single run
+  private final int left;
+  private final int right;
+  private final int[] run;
+  private final int[] pixel = new int[3];
+
+  // Allocated on the first move, as a reader of single rows does not need them
+  private int[][] ring;
+  private int[][] window;
+  // Row the window is centered on, or Integer.MIN_VALUE before the first move
+  private int center = Integer.MIN_VALUE;
+
+  /**
+   * Prepares a window over the columns x to x + width of the source.
+   *
+   * @param source   the raster to read
+   * @param x        the first column of the region
+   * @param width    the width of the region
+   * @param cVal     half the size of the kernel
+   * @param edgeMode how pixels outside of the source are filled in
+   */
+  RowWindow(RasterInterface source, int x, int width, int cVal, EdgeMode edgeMode) {
+    this.source = source;
+    this.edgeMode = edgeMode;
+    this.cVal = cVal;
+    this.first = x - cVal;
+    this.paddedWidth = width + 2 * cVal;
+    this.left = Math.max(0, this.first);
+    this.right = Math.min(source.getWidth(), this.first + this.paddedWidth);
+    this.run = new int[3 * Math.max(0, this.right - this.left)];
+  }
+
+  /**
+   * Moves the window so that it is centered on the given row and returns its rows from top to
+   * bottom. The returned array and its rows are reused by the next move.
+   *
+   * @param y the row of the source the window is centered on
+   * @return the 2 * cVal + 1 padded rows from y - cVal to y + cVal
+   */
+  int[][] moveTo(int y) {
+    int size = 2 * this.cVal + 1;
+    if (this.ring == null) {
+      this.ring = new int[size][3 * this.paddedWidth];
+      this.window = new int[size][];
+    }
+    // Only the rows that were not in the window before are read
+    int firstNew = y - this.cVal;
+    if (this.center != Integer.MIN_VALUE && y >= this.center && y - this.center < size) {
+      firstNew = this.center + this.cVal + 1;
+    }
+    for (int r = firstNew; r <= y + this.cVal; r++) {
+      readRow(r, this.ring[Math.floorMod(r, size)]);
+    }
+    this.center = y;
+    for (int fi = 0; fi < size; fi++) {
+      this.window[fi] = this.ring[Math.floorMod(y - this.cVal + fi, size)];
+    }
+    return this.window;
+  }
+
+  /**
+   * Reads a padded row of the source into the given array. Rows outside of the source that the
+   * edge mode does not map to a row are black.
+   *
+   * @param r   the row of the source, which may be outside of it
+   * @param row the array to fill, holding three samples for each padded pixel
+   */
+  void readRow(int r, int[] row) {
+    int sR = this.edgeMode.map(r, this.source.getHeight());
+    if (sR < 0) {
+      Arrays.fill(row, 0);
+      return;
+    }
+    if (this.left < this.right) {
+      this.source.readSamples(sR, this.left, this.right - this.left, this.run);
+      System.arraycopy(this.run, 0, row, 3 * (this.left - this.first), this.run.length);
+    }
+
+    // Columns outside of the source, at most cVal on each side. They mostly map to columns of
+    // the run that was just read, and only columns beyond it are read from the source.
+    int m = this.source.getWidth();
+    for (int c = 0; c < this.paddedWidth; c++) {
+      int col = this.first + c;
+      if (col == this.left && this.left < this.right) {
+        c = this.right - this.first - 1;
+        continue;
+      }
+      int sC = this.edgeMode.map(col, m);
+      if (sC >= this.left && sC < this.right) {
+        System.arraycopy(this.run, 3 * (sC - this.left), row, 3 * c, 3);
+      } else if (sC >= 0) {
+        this.source.readSamples(sR, sC, 1, this.pixel);
+        System.arraycopy(this.pixel, 0, row, 3 * c, 3);
+      } else {
+        row[3 * c] = 0;
+        row[3 * c + 1] = 0;
+        row[3 * c + 2] = 0;
+      }
+    }
+  }
+
+  /**
+   * Return the number of samples in a padded row.
+   *
+   * @return three times the padded width.
+   */
+  int getRowLength() {
+    return 3 * this.paddedWidth;
+  }
+}
@@ -0,0 +1,229 @@
+package imagemodel;
+
+/**
+ * This class represents a raster for images with more than 8 bits per channel, such as PPM files
+ * with a maximum value up to 65535. Every channel is stored in its own short array, so a pixel
+ * takes 6 bytes, and greyscale images share a single plane across their channels.
+ * Samples are read and written at the depth of the raster. Packed 0xRRGGBB rows are scaled to and
+ * from 8 bits per channel.
+ */
+public class ShortRaster implements RasterInterface {
+
+  private final int width;
+  private final int height;
+  private final int maxValue;
+  private short[] red;
+  private short[] green;
+  private short[] blue;
+
+  /**
+   * Construct a new black raster with the given dimensions.
+   *
+   * @param width    the width of the raster
+   * @param height   the height of the raster
+   * @param maxValue the largest value a sample can hold, at most 65535
+   */
+  public ShortRaster(int width, int height, int maxValue) {
+    this(width, height, maxValue, new short[Math.multiplyExact(width, height)],
+            new short[width * height], new short[width * height]);
+  }
+
+  /**
+   * Construct a new greyscale raster that uses the given plane for all three channels.
+   * The plane is not copied.
+   *
+   * @param width    the width of the raster
+   * @param height   the height of the raster
+   * @param maxValue the largest value a sample can hold, at most 65535
+   * @param grey     the unsigned values of the pixels in row-major order
+   */
+  public ShortRaster(int width, int height, int maxValue, short[] grey) {
+    this(width, height, maxValue, grey, grey, grey);
+  }
+
+  /**
+   * Construct a new raster around the given planes. The planes are not copied and may be the
+   * same array.
+   *
+   * @param width    the width of the raster
+   * @param height   the height of the raster
+   * @param maxValue the largest value a sample can hold, at most 65535
+   * @param red      the unsigned red values of the pixels in row-major order
+   * @param green    the unsigned green values of the pixels in row-major order
+   * @param blue     the unsigned blue values of the pixels in row-major order
+   */
+  public ShortRaster(int width, int height, int maxValue, short[] red, short[] green,
+                     short[] blue) {
+    if (red == null || green == null || blue == null) {
+      throw new IllegalArgumentException("The planes cannot be null");
+    }
+    if (width < 0 || height < 0) {
+      throw new IllegalArgumentException("The raster dimensions cannot be negative");
+    }
+    if (maxValue < 1 || maxValue > 65535) {
+      throw new IllegalArgumentException("The maximum value must be between 1 and 65535");
+    }
+    long size = (long) width * height;
+    if (red.length != size || green.length != size || blue.length != size) {
+      throw new IllegalArgumentException("The planes are not of expected size");
+    }
+    this.width = width;
+    this.height = height;
+    this.maxValue = maxValue;
+    this.red = red;
+    this.green = green;
+    this.blue = blue;
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  /**
+   * Return the largest value a sample of this raster can hold.
+   *
+   * @return the maximum sample value.
+   */
+  public int getMaxValue() {
+    return this.maxValue;
+  }
+
+  @Override
+  public int getSample(int row, int col, int band) {
+    return getPlane(band)[row * this.width + col] & 0xFFFF;
+  }
+
+  @Override
+  public void readRow(int row, int[] dst) {
+    int offset = row * this.width;
+    for (int j = 0; j < this.width; j++) {
+      dst[j] = (toByte(this.red[offset + j]) << 16) | (toByte(this.green[offset + j]) << 8)
+              | toByte(this.blue[offset + j]);
+    }
+  }
+
+  @Override
+  public void writeRow(int row, int[] src) {
+    separatePlanes();
+    int offset = row * this.width;
+    for (int j = 0; j < this.width; j++) {
+      this.red[offset + j] = fromByte(src[j] >> 16);
+      this.green[offset + j] = fromByte(src[j] >> 8);
+      this.blue[offset + j] = fromByte(src[j]);
+    }
+  }
+
+  @Override
+  public void readSamples(int row, int[] dst) {
+    int offset = row * this.width;
+    for (int j = 0, k = 0; j < this.width; j++, k += 3) {
+      dst[k] = this.red[offset + j] & 0xFFFF;
+      dst[k + 1] = this.green[offset + j] & 0xFFFF;
+      dst[k + 2] = this.blue[offset + j] & 0xFFFF;
+    }
+  }
+
+  @Override
+  public void readSamples(int row, int col, int count, int[] dst) {
+    int offset = row * this.width + col;
+    for (int j = 0, k = 0; j < count; j++, k += 3) {
+      dst[k] = this.red[offset + j] & 0xFFFF;
+      dst[k + 1] = this.green[offset + j] & 0xFFFF;
+      dst[k + 2] = this.blue[offset + j] & 0xFFFF;
+    }
+  }
+
+  @Override
+  public void writeSamples(int row, int[] src) {
+    separatePlanes();
+    int offset = row * this.width;
+    for (int j = 0, k = 0; j < this.width; j++, k += 3) {
+      this.red[offset + j] = (short) clamp(src[k]);
+      this.green[offset + j] = (short) clamp(src[k + 1]);
+      this.blue[offset + j] = (short) clamp(src[k + 2]);
+    }
+  }
+
+  @Override
+  public RasterInterface extractBand(int band) {
+    return new ShortRaster(this.width, this.height, this.maxValue, getPlane(band).clone());
+  }
+
+  @Override
+  public RasterInterface createCompatible(int width, int height) {
+    return new ShortRaster(width, height, this.maxValue);
+  }
+
+  @Override
+  public RasterInterface copy() {
+    if (this.red == this.green && this.green == this.blue) {
+      return new ShortRaster(this.width, this.height, this.maxValue, this.red.clone());
+    }
+    return new ShortRaster(this.width, this.height, this.maxValue, this.red.clone(),
+            this.green.clone(), this.blue.clone());
+  }
+
+  @Override
+  public long estimatedBytes() {
+    boolean greyscale = this.red == this.green && this.green == this.blue;
+    return (greyscale ? 2L : 6L) * this.red.length;
+  }
+
+  @Override
+  public boolean isOffHeap() {
+    return false;
+  }
+
+  @Override
+  public String describe() {
+    return "planar short[], maxval " + this.maxValue;
+  }
+
+  private short[] getPlane(int band) {
+    switch (band) {
+      case 0:
+        return this.red;
+      case 1:
+        return this.green;
+      case 2:
+        return this.blue;
+      default:
+        throw new IllegalArgumentException("Invalid band: " + band);
+    }
+  }
+
+  @Override
+  public void prepareForWrite() {
+    separatePlanes();
+  }
+
+  // Gives each channel its own plane before a write, so that shared planes are never modified
+  private void separatePlanes() {
+    if (this.green == this.red || this.green == this.blue) {
+      this.green = this.green.clone();
+    }
+    if (this.blue == this.red) {
+      this.blue = this.blue.clone();
+    }
+  }
+
+  // Scales a sample of this raster to 8 bits, rounding to the nearest value
+  private int toByte(short sample) {
+    return ((sample & 0xFFFF) * 255 + this.maxValue / 2) / this.maxValue;
+  }
+
+  // Scales an 8 bit value to the depth of this raster, rounding to the nearest value
+  private short fromByte(int value) {
+    return (short) (((value & 0xFF) * this.maxValue + 127) / 255);
+  }
+
+  private int clamp(int value) {
+    return Math.max(0, Math.min(this.maxValue, value));
+  }
+}
@@ -0,0 +1,58 @@
+package imagemodel;
+
+/**
+ * This enum represents where the pixels of a newly loaded image are kept.
+ */
+public enum StorageType {
+  /**
+   * Heap storage for regular images, off-heap storage for images above OFF_HEAP_THRESHOLD pixels.
+   */
+  AUTO,
+  /**
+   * A packed int per pixel on the Java heap.
+   */
+  HEAP,
+  /**
+   * Three bytes per pixel in direct memory.
+   */
+  OFF_HEAP,
+  /**
+   * Three bytes per pixel in a memory mapped temporary file.
+   */
+  MAPPED,
+  /**
+   * Tiles of packed ints on the Java heap. Filters and color transforms of such images are only
+   * computed for the tiles that are read.
+   */
+  TILED;
+
+  /**
+   * Number of pixels above which AUTO keeps an image off the heap.
+   */
+  public static final long OFF_HEAP_THRESHOLD = 1L << 26;
+
+  /**
+   * Creates a new, black raster of this storage type.
+   *
+   * @param width  the width of the raster
+   * @param height the height of the raster
+   * @return a new raster
+   */
+  public RasterInterface createRaster(int width, int height) {
+    switch (this) {
+      case OFF_HEAP:
+        return new OffHeapRaster(width, height, false);
+      case MAPPED:
+        return new OffHeapRaster(width, height, true);
+      case TILED:
+        return new TiledRaster(width, height);
+      case AUTO:
+        if ((long) width * height > OFF_HEAP_THRESHOLD) {
+          return new OffHeapRaster(width, height, false);
+        }
+        return new PackedRaster(width, height);
+      default:
+        return new PackedRaster(width, height);
+    }
+  }
+}
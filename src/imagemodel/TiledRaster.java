@@ -0,0 +1,274 @@
+package imagemodel;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * This class represents a raster that is split into square tiles of TILE_SIZE pixels. Every tile
+ * packs its pixels into ints in the 0xRRGGBB format and is only allocated when it is first used.
+ * A raster created with a TileSource computes a tile the first time it is read, so tiles of a
+ * result that are never read are never computed.
+ */
+public class TiledRaster implements RasterInterface {
+
+  /**
+   * Width and height of a tile in pixels. Tiles on the right and bottom edge may be smaller.
+   */
+  public static final int TILE_SIZE = 256;
+
+  private final int width;
+  private final int height;
+  private final int tilesAcross;
+  private final AtomicReferenceArray<int[]> tiles;
+  // Computes the tiles that have not been created yet, null once every tile exists
+  private volatile TileSource source;
+  private final AtomicInteger createdTiles = new AtomicInteger();
+
+  /**
+   * This interface represents the computation of the pixels of a tile.
+   */
+  public interface TileSource {
+
+    /**
+     * Computes the pixels of a region of the raster as interleaved samples, row after row. The
+     * samples of the pixel at (x + j, y + i) go to 3 * (i * width + j) and the next two indices.
+     * Samples outside of 0 to 255 are clamped by the raster.
+     *
+     * @param x       the first column of the region
+     * @param y       the first row of the region
+     * @param width   the width of the region
+     * @param height  the height of the region
+     * @param samples the array to fill, holding 3 * width * height elements
+     */
+    void computeTile(int x, int y, int width, int height, int[] samples);
+  }
+
+  /**
+   * Construct a new black raster with the given dimensions.
+   *
+   * @param width  the width of the raster
+   * @param height the height of the raster
+   */
+  public TiledRaster(int width, int height) {
+    this(width, height, null);
+  }
+
+  /**
+   * Construct a new raster whose tiles are computed by the given source when they are first used.
+   *
+   * @param width  the width of the raster
+   * @param height the height of the raster
+   * @param source computes the pixels of a tile, or null for a black raster
+   */
+  public TiledRaster(int width, int height, TileSource source) {
+    if (width < 0 || height < 0) {
+      throw new IllegalArgumentException("The raster dimensions cannot be negative");
+    }
+    this.width = width;
+    this.height = height;
+    this.tilesAcross = (width + TILE_SIZE - 1) / TILE_SIZE;
+    int tilesDown = (height + TILE_SIZE - 1) / TILE_SIZE;
+    this.tiles = new AtomicReferenceArray<>(Math.multiplyExact(this.tilesAcross, tilesDown));
+    this.source = source;
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  @Override
+  public int getSample(int row, int col, int band) {
+    int rgb = tile(row, col)[(row % TILE_SIZE) * tileWidth(col) + col % TILE_SIZE];
+    return (rgb >> (16 - 8 * band)) & 0xFF;
+  }
+
+  @Override
+  public void readRow(int row, int[] dst) {
+    readRow(row, 0, this.width, dst);
+  }
+
+  @Override
+  public void readRow(int row, int col, int count, int[] dst) {
+    int end = col + count;
+    for (int x = col; x < end; ) {
+      int tileWidth = tileWidth(x);
+      int offset = (row % TILE_SIZE) * tileWidth + x % TILE_SIZE;
+      int length = Math.min(end - x, tileWidth - x % TILE_SIZE);
+      System.arraycopy(tile(row, x), offset, dst, x - col, length);
+      x += length;
+    }
+  }
+
+  @Override
+  public void writeRow(int row, int[] src) {
+    for (int x = 0; x < this.width; ) {
+      int tileWidth = tileWidth(x);
+      int[] tile = tile(row, x);
+      int offset = (row % TILE_SIZE) * tileWidth;
+      for (int j = 0; j < tileWidth; j++) {
+        tile[offset + j] = src[x + j] & 0xFFFFFF;
+      }
+      x += tileWidth;
+    }
+  }
+
+  @Override
+  public void readSamples(int row, int[] dst) {
+    readSamples(row, 0, this.width, dst);
+  }
+
+  @Override
+  public void readSamples(int row, int col, int count, int[] dst) {
+    int end = col + count;
+    for (int x = col; x < end; ) {
+      int tileWidth = tileWidth(x);
+      int[] tile = tile(row, x);
+      int offset = (row % TILE_SIZE) * tileWidth + x % TILE_SIZE;
+      int length = Math.min(end - x, tileWidth - x % TILE_SIZE);
+      for (int j = 0, k = 3 * (x - col); j < length; j++, k += 3) {
+        int rgb = tile[offset + j];
+        dst[k] = (rgb >> 16) & 0xFF;
+        dst[k + 1] = (rgb >> 8) & 0xFF;
+        dst[k + 2] = rgb & 0xFF;
+      }
+      x += length;
+    }
+  }
+
+  @Override
+  public void writeSamples(int row, int[] src) {
+    for (int x = 0; x < this.width; ) {
+      int tileWidth = tileWidth(x);
+      int[] tile = tile(row, x);
+      int offset = (row % TILE_SIZE) * tileWidth;
+      for (int j = 0, k = 3 * x; j < tileWidth; j++, k += 3) {
+        tile[offset + j] = (clamp(src[k]) << 16) | (clamp(src[k + 1]) << 8) | clamp(src[k + 2]);
+      }
+      x += tileWidth;
+    }
+  }
+
+  /**
+   * Creates a greyscale raster of the given channel whose tiles are computed when they are first
+   * read, from the tiles of this raster at that time. A tile of this raster that is still to be
+   * computed is therefore only computed if the same tile of the channel is read.
+   *
+   * @param band 0 for red, 1 for green and 2 for blue.
+   * @return a new greyscale raster.
+   */
+  @Override
+  public RasterInterface extractBand(int band) {
+    int shift = 16 - 8 * band;
+    return new TiledRaster(this.width, this.height, (x, y, width, height, samples) -> {
+      // The tiles of the channel cover the same pixels as the tiles of this raster
+      int[] tile = tile(y, x);
+      for (int i = 0, k = 0; i < tile.length; i++, k += 3) {
+        int value = (tile[i] >> shift) & 0xFF;
+        samples[k] = value;
+        samples[k + 1] = value;
+        samples[k + 2] = value;
+      }
+    });
+  }
+
+  @Override
+  public RasterInterface createCompatible(int width, int height) {
+    return new TiledRaster(width, height);
+  }
+
+  @Override
+  public RasterInterface copy() {
+    // The source is read first, as it is only cleared once every tile exists
+    TiledRaster copy = new TiledRaster(this.width, this.height, this.source);
+    for (int t = 0; t < this.tiles.length(); t++) {
+      int[] tile = this.tiles.get(t);
+      if (tile != null) {
+        copy.tiles.set(t, tile.clone());
+        copy.createdTiles.incrementAndGet();
+      }
+    }
+    if (copy.createdTiles.get() == copy.tiles.length()) {
+      copy.source = null;
+    }
+    return copy;
+  }
+
+  @Override
+  public long estimatedBytes() {
+    long bytes = 0;
+    for (int t = 0; t < this.tiles.length(); t++) {
+      int[] tile = this.tiles.get(t);
+      if (tile != null) {
+        bytes += 4L * tile.length;
+      }
+    }
+    return bytes;
+  }
+
+  @Override
+  public boolean isOffHeap() {
+    return false;
+  }
+
+  @Override
+  public String describe() {
+    return "tiled int[], " + this.createdTiles.get() + " of " + this.tiles.length() + " tiles";
+  }
+
+  /**
+   * Return the number of tiles that have been allocated or computed so far.
+   *
+   * @return the number of tiles in memory.
+   */
+  int getCreatedTiles() {
+    return this.createdTiles.get();
+  }
+
+  // Returns the tile holding the given pixel, creating it first if needed. Tiles that exist are
+  // returned without any locking. A missing tile is computed without a lock as well, so threads
+  // reading different tiles compute them in parallel. If two threads compute the same tile, the
+  // first one to publish it wins and the other returns that tile.
+  private int[] tile(int row, int col) {
+    int index = (row / TILE_SIZE) * this.tilesAcross + col / TILE_SIZE;
+    int[] tile = this.tiles.get(index);
+    if (tile != null) {
+      return tile;
+    }
+
+    int x = col - col % TILE_SIZE;
+    int y = row - row % TILE_SIZE;
+    int tileWidth = tileWidth(col);
+    int tileHeight = Math.min(TILE_SIZE, this.height - y);
+    tile = new int[tileWidth * tileHeight];
+    TileSource tileSource = this.source;
+    if (tileSource != null) {
+      int[] samples = new int[3 * tile.length];
+      tileSource.computeTile(x, y, tileWidth, tileHeight, samples);
+      for (int i = 0, k = 0; i < tile.length; i++, k += 3) {
+        tile[i] = (clamp(samples[k]) << 16) | (clamp(samples[k + 1]) << 8) | clamp(samples[k + 2]);
+      }
+    }
+    if (!this.tiles.compareAndSet(index, null, tile)) {
+      return this.tiles.get(index);
+    }
+    if (this.createdTiles.incrementAndGet() == this.tiles.length()) {
+      // Every tile exists, so whatever the source refers to is no longer needed
+      this.source = null;
+    }
+    return tile;
+  }
+
+  private int tileWidth(int col) {
+    return Math.min(TILE_SIZE, this.width - (col - col % TILE_SIZE));
+  }
+
+  private static int clamp(int value) {
+    return Math.max(0, Math.min(255, value));
+  }
+}
@@ -22,6 +22,7 @@ import javax.swing.JFrame;
 import javax.swing.JButton;
 import javax.swing.JComboBox;
 import javax.swing.JFileChooser;
+import javax.swing.JLabel;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
 import helpers.Constants;
@@ -44,6 +45,7 @@ public class GraphicalView extends JFrame implements View {
   private final JButton combine;
   private final ImageCanvas imageCanvas;
   private final HistogramGraphPanel histogramGraphPanel;
+  private final JLabel memoryStatus;
   private JComboBox operationDrop;
   private String[] commands = {"Loading commands..."};
 
@@ -120,6 +122,14 @@ public class GraphicalView extends JFrame implements View {
     cc.gridx = 2;
     cc.gridy = 0;
     this.getContentPane().add(combine, cc);
+
+    // Memory held by the loaded images
+    GridBagConstraints mc = new GridBagConstraints();
+    memoryStatus = new JLabel("No images loaded");
+    mc.fill = GridBagConstraints.HORIZONTAL;
+    mc.gridx = 2;
+    mc.gridy = 1;
+    this.getContentPane().add(memoryStatus, mc);
     setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
   }
 
@@ -284,13 +294,13 @@ public class GraphicalView extends JFrame implements View {
           arguments.add(GraphicHelper.getRecentImageName(controller));
           switch (arr[1]) {
             case "red":
-              arguments.addAll(Arrays.asList("red", "_", "_"));
+              arguments.addAll(Arrays.asList("red", Constants.SKIP_IMAGE, Constants.SKIP_IMAGE));
               break;
             case "green":
-              arguments.addAll(Arrays.asList("_", "green", "_"));
+              arguments.addAll(Arrays.asList(Constants.SKIP_IMAGE, "green", Constants.SKIP_IMAGE));
               break;
             case "blue":
-              arguments.addAll(Arrays.asList("_", "_", "blue"));
+              arguments.addAll(Arrays.asList(Constants.SKIP_IMAGE, Constants.SKIP_IMAGE, "blue"));
               break;
             default:
               showMessageDialog(
@@ -406,6 +416,15 @@ public class GraphicalView extends JFrame implements View {
     }
   }
 
+  /**
+   * Shows the given summary of the memory held by the loaded images.
+   *
+   * @param summary the text to show in the status label
+   */
+  public void setMemoryStatus(String summary) {
+    this.memoryStatus.setText(summary);
+  }
+
   @Override
   public void clearView() {
     System.out.println("Unable to clear view at this moment");
@@ -1,7 +1,9 @@
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
+import helpers.CurveReaderTest;
 import helpers.ImageImpHelperTest;
+import helpers.KernelRegistryTest;
 import imagecontroller.ImageControllerTest;
 import imagemodel.ImageImplTest;
 import imageview.TerminalViewTest;
@@ -11,7 +13,9 @@ import imageview.TerminalViewTest;
  */
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
+      CurveReaderTest.class,
       ImageImpHelperTest.class,
+      KernelRegistryTest.class,
       ImageImplTest.class,
       ImageControllerTest.class,
       TerminalViewTest.class
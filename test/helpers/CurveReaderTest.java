@@ -0,0 +1,58 @@
+package helpers;
+
+import org.junit.Test;
+
+import imagemodel.ChannelLut;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class for CurveReader.
+ */
+public class CurveReaderTest {
+
+  @Test
+  public void testParseCurve() {
+    ChannelLut curve = CurveReader.parseCurve(
+            "# comment\n0 10\n100, 110\n\nred 50 0  # red only\nred 150 255\n", 255);
+
+    // Green and blue follow the shared points, flat outside of them
+    assertEquals(10, curve.lookup(1, 0));
+    assertEquals(60, curve.lookup(1, 50));
+    assertEquals(110, curve.lookup(2, 100));
+    assertEquals(110, curve.lookup(2, 255));
+    // Red follows its own points
+    assertEquals(0, curve.lookup(0, 50));
+    assertEquals(128, curve.lookup(0, 100));
+    assertEquals(255, curve.lookup(0, 200));
+  }
+
+  @Test
+  public void testReadCurveFile() {
+    ChannelLut curve = CurveReader.readCurve("res/curves/contrast.txt", 255);
+
+    assertEquals(48, curve.lookup(0, 64));
+    assertEquals(128, curve.lookup(1, 128));
+    assertEquals(208, curve.lookup(2, 192));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testParseCurveNoPoints() {
+    CurveReader.parseCurve("# nothing\n", 255);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testParseCurveInvalidPoint() {
+    CurveReader.parseCurve("0 0\n10\n", 255);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testParseCurveDecreasingInputs() {
+    CurveReader.parseCurve("100 0\n50 255\n", 255);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testReadCurveMissingFile() {
+    CurveReader.readCurve("res/curves/missing.txt", 255);
+  }
+}
@@ -0,0 +1,89 @@
+package helpers;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import imagemodel.Kernel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for KernelRegistry.
+ */
+public class KernelRegistryTest {
+
+  @Test
+  public void testParseKernel() {
+    Kernel kernel = KernelRegistry.parseKernel(
+            "# a comment\n1/16, 2/16, 1/16\n\n2/16 4/16 2/16  # row two\n0.0625 0.125 0.0625\n");
+
+    assertEquals(3, kernel.getSize());
+    assertTrue(kernel.isSeparable());
+    assertTrue(kernel.isFixedPoint());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testParseKernelInvalidWeight() {
+    KernelRegistry.parseKernel("1 2 x\n1 2 3\n1 2 3");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testParseKernelNotSquare() {
+    KernelRegistry.parseKernel("1 2 3\n1 2 3");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testParseKernelEmpty() {
+    KernelRegistry.parseKernel("# nothing but a comment\n");
+  }
+
+  @Test
+  public void testGetKernelFromFile() {
+    KernelRegistry registry = new KernelRegistry();
+    Kernel gaussian = registry.getKernel("res/kernels/gaussian-5x5.txt");
+    Kernel emboss = registry.getKernel("res/kernels/emboss.txt");
+
+    assertEquals(5, gaussian.getSize());
+    assertTrue(gaussian.isSeparable());
+    assertEquals(3, emboss.getSize());
+    assertFalse(emboss.isSeparable());
+  }
+
+  @Test
+  public void testGetKernelCached() throws IOException {
+    File file = File.createTempFile("kernel", ".txt");
+    file.deleteOnExit();
+    Files.write(file.toPath(), "0 0 0\n0 1 0\n0 0 0\n".getBytes());
+    KernelRegistry registry = new KernelRegistry();
+
+    Kernel first = registry.getKernel(file.getPath());
+    Kernel second = registry.getKernel(file.getAbsolutePath());
+    assertSame(first, second);
+    assertEquals(1, registry.size());
+
+    // A changed file is read again
+    Files.write(file.toPath(), "0 1 0\n1 -4 1\n0 1 0\n".getBytes());
+    assertTrue(file.setLastModified(file.lastModified() + 2000));
+    Kernel third = registry.getKernel(file.getPath());
+    assertNotSame(first, third);
+    assertFalse(third.isSeparable());
+    assertEquals(1, registry.size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetKernelMissingFile() {
+    new KernelRegistry().getKernel("res/kernels/missing.txt");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetKernelNull() {
+    new KernelRegistry().getKernel(null);
+  }
+}
@@ -7,7 +7,9 @@ import java.util.List;
 
 import helpers.ImageImplHelper;
 import helpers.Response;
+import imagemodel.ChannelLut;
 import imagemodel.ColorTransform;
+import imagemodel.EdgeMode;
 import imagemodel.ImageImpl;
 import imagemodel.ImageInterface;
 import imagemodel.ImageStore;
@@ -87,11 +89,41 @@ public class GraphicalControllerTest {
       return this;
     }
 
+    @Override
+    public ImageInterface blur(Kernel blur, EdgeMode edgeMode) {
+      return this;
+    }
+
     @Override
     public ImageInterface sharpen(Kernel sharpen) {
       return this;
     }
 
+    @Override
+    public ImageInterface sharpen(Kernel sharpen, EdgeMode edgeMode) {
+      return this;
+    }
+
+    @Override
+    public ImageInterface convolve(Kernel kernel, EdgeMode edgeMode) {
+      return this;
+    }
+
+    @Override
+    public ImageInterface applyLut(ChannelLut lut) {
+      return this;
+    }
+
+    @Override
+    public ImageInterface boxBlur(int radius) {
+      return this;
+    }
+
+    @Override
+    public ImageInterface gaussianBlur(double sigma) {
+      return this;
+    }
+
     @Override
     public ImageInterface sepia(ColorTransform sepia) {
       return this;
@@ -7,8 +7,12 @@ import java.util.Arrays;
 import java.util.List;
 
 import helpers.ImageImplHelper;
+import imagecontroller.commands.RGBSplit;
+import imagemodel.ChannelLut;
 import imagemodel.ColorTransform;
+import imagemodel.EdgeMode;
 import imagemodel.ImageImpl;
+import imagemodel.ImageImplTest;
 import imagemodel.ImageInterface;
 
 import imagemodel.ImageStore;
@@ -17,6 +21,7 @@ import imageview.TerminalView;
 import imageview.TerminalViewTest;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -88,11 +93,41 @@ public class ImageControllerTest {
       return this;
     }
 
+    @Override
+    public ImageInterface blur(Kernel blur, EdgeMode edgeMode) {
+      return this;
+    }
+
     @Override
     public ImageInterface sharpen(Kernel sharpen) {
       return this;
     }
 
+    @Override
+    public ImageInterface sharpen(Kernel sharpen, EdgeMode edgeMode) {
+      return this;
+    }
+
+    @Override
+    public ImageInterface convolve(Kernel kernel, EdgeMode edgeMode) {
+      return this;
+    }
+
+    @Override
+    public ImageInterface applyLut(ChannelLut lut) {
+      return this;
+    }
+
+    @Override
+    public ImageInterface boxBlur(int radius) {
+      return this;
+    }
+
+    @Override
+    public ImageInterface gaussianBlur(double sigma) {
+      return this;
+    }
+
     @Override
     public ImageInterface sepia(ColorTransform sepia) {
       return this;
@@ -169,6 +204,19 @@ public class ImageControllerTest {
     assertEquals(true, compareOutputs(actualOutput, expectedOutput));
   }
 
+  @Test
+  public void testLoad_fail_reservedName() {
+    TerminalViewTest.ReadableInputStream inputStream =
+            new ReadableInputStreamQuitDefault("load res/SMPTE/SMPTE-original.ppm _");
+    TerminalViewTest.WritableOutputStream outputStream =
+            new TerminalViewTest.WritableOutputStream();
+    getController(inputStream, outputStream).beginApp();
+    String actualOutput = outputStream.getOutput();
+    String expectedOutput = getExpectedOutput(new boolean[]{false}, new String[]{"load"});
+
+    assertEquals(true, compareOutputs(actualOutput, expectedOutput));
+  }
+
   @Test
   public void testLoadLoaderDispatch() {
     TerminalViewTest.ReadableInputStream inputStream =
@@ -430,6 +478,20 @@ public class ImageControllerTest {
     assertEquals(true, compareOutputs(actualOutput, expectedOutput));
   }
 
+  @Test
+  public void testRGBSplit_skipsChannels() {
+    ImageStore imageStore = new ImageStore();
+    imageStore.getImages().put("SMPTE", new ImageImplHelper()
+            .loadImage("res/SMPTE/SMPTE-original.ppm"));
+    new RGBSplit().operate(imageStore,
+            new ArrayList<>(Arrays.asList("SMPTE", "_", "SMPTE-green", "_")));
+
+    assertEquals(2, imageStore.getImages().size());
+    assertTrue(ImageImplTest.compareImages(
+            imageStore.getImages().get("SMPTE").greyscale("green-component"),
+            imageStore.getImages().get("SMPTE-green")));
+  }
+
   @Test
   public void testRGBSplit_fail_wrongArgs() {
     TerminalViewTest.ReadableInputStream inputStream = new ReadableInputStreamQuitDefault(
@@ -513,6 +575,38 @@ public class ImageControllerTest {
     assertEquals(true, compareOutputs(actualOutput, expectedOutput));
   }
 
+  @Test
+  public void testMemoryReport() {
+    TerminalViewTest.ReadableInputStream inputStream = new ReadableInputStreamQuitDefault(
+            "load res/SMPTE/SMPTE-original.ppm SMPTE\n"
+                    + "vertical-flip SMPTE SMPTE-vertical\n"
+                    + "memory");
+    TerminalViewTest.WritableOutputStream outputStream =
+            new TerminalViewTest.WritableOutputStream();
+    getTrueController(inputStream, outputStream).beginApp();
+    String actualOutput = outputStream.getOutput();
+
+    assertTrue(actualOutput.contains("Image "));
+    assertTrue(actualOutput.contains("flipped view of packed int[]"));
+    assertTrue(actualOutput.contains("2 images, "));
+  }
+
+  @Test
+  public void testMemoryReport_script() {
+    TerminalViewTest.ReadableInputStream inputStream = new ReadableInputStreamQuitDefault(
+            "run res/scripts/memoryScript");
+    TerminalViewTest.WritableOutputStream outputStream =
+            new TerminalViewTest.WritableOutputStream();
+    getTrueController(inputStream, outputStream).beginApp();
+    String actualOutput = outputStream.getOutput();
+
+    assertTrue(actualOutput.contains("Image "));
+    assertTrue(actualOutput.contains("flipped view of packed int[]"));
+    assertTrue(actualOutput.contains("2 images, "));
+    assertTrue(actualOutput.contains("Success: run"));
+    assertFalse(actualOutput.contains("Failure"));
+  }
+
   @Test
   public void testRunScript_success() {
     TerminalViewTest.ReadableInputStream inputStream = new ReadableInputStreamQuitDefault(
@@ -527,23 +621,28 @@ public class ImageControllerTest {
     assertEquals("\u001B[H\u001B[2JAvailable commands:\n"
             + "\n"
             + "brighten value img-src img-dest\n"
-            + "sharpen img-src img-dest\n"
+            + "sharpen [--zero|--clamp|--mirror|--wrap] img-src img-dest\n"
+            + "gaussian-blur sigma img-src img-dest\n"
             + "dither img-src img-dest\n"
             + "Save file-path image-name\n"
-            + "blur img-src img-dest\n"
+            + "blur [--zero|--clamp|--mirror|--wrap] img-src img-dest\n"
             + "greyscale component img-src img-dest\n"
             + "greyscale img-src img-dest\n"
             + "horizontal-flip img-src img-dest\n"
-            + "rgb-split img-src img-red img-green img-blue\n"
+            + "convolve [--zero|--clamp|--mirror|--wrap] kernel-file img-src img-dest\n"
+            + "rgb-split img-src img-red img-green img-blue (_ skips a channel)\n"
+            + "curves curve-file img-src img-dest\n"
             + "sepia img-src img-dest\n"
             + "rgb-combine img-dest img-red img-green img-blue\n"
-            + "Load file-path image-name\n"
+            + "Load [--offheap|--mapped|--tiled] file-path image-name\n"
             + "vertical-flip img-src img-dest\n"
             + "mosaic num-seeds img-src img-dest\n"
+            + "box-blur radius img-src img-dest\n"
+            + "levels black white gamma img-src img-dest\n"
             + "\n"
             + "\n"
             + "To view the available commands again, type \"help\". To quit the program, "
-            + "type \"quit\".\n"
+            + "type \"quit\". To see the memory held by the loaded images, type \"memory\".\n"
             + "Enter a command: Success: load\n"
             + " Success: load\n"
             + " Success: load\n"
@@ -671,6 +770,154 @@ public class ImageControllerTest {
     assertEquals(true, compareOutputs(actualOutput, expectedOutput));
   }
 
+  @Test
+  public void testBlur_edgeMode() {
+    TerminalViewTest.ReadableInputStream inputStream = new ReadableInputStreamQuitDefault(
+            "load res/SMPTE/SMPTE-original.ppm SMPTE\n"
+                    + " blur --mirror SMPTE SMPTE-blur");
+    TerminalViewTest.WritableOutputStream outputStream =
+            new TerminalViewTest.WritableOutputStream();
+    getController(inputStream, outputStream).beginApp();
+    String actualOutput = outputStream.getOutput();
+    String expectedOutput = getExpectedOutput(
+            new boolean[]{true, true}, new String[]{"load", "blur"});
+
+    assertEquals(true, compareOutputs(actualOutput, expectedOutput));
+  }
+
+  @Test
+  public void testBlur_fail_unknownEdgeMode() {
+    TerminalViewTest.ReadableInputStream inputStream = new ReadableInputStreamQuitDefault(
+            "load res/SMPTE/SMPTE-original.ppm SMPTE\n"
+                    + " blur --reflect SMPTE SMPTE-blur");
+    TerminalViewTest.WritableOutputStream outputStream =
+            new TerminalViewTest.WritableOutputStream();
+    getController(inputStream, outputStream).beginApp();
+    String actualOutput = outputStream.getOutput();
+    String expectedOutput = getExpectedOutput(
+            new boolean[]{true, false}, new String[]{"load", "blur"});
+
+    assertEquals(true, compareOutputs(actualOutput, expectedOutput));
+  }
+
+  @Test
+  public void testBoxBlur_success() {
+    TerminalViewTest.ReadableInputStream inputStream = new ReadableInputStreamQuitDefault(
+            "load res/SMPTE/SMPTE-original.ppm SMPTE\n"
+                    + " box-blur 3 SMPTE SMPTE-blur");
+    TerminalViewTest.WritableOutputStream outputStream =
+            new TerminalViewTest.WritableOutputStream();
+    getController(inputStream, outputStream).beginApp();
+    String actualOutput = outputStream.getOutput();
+    String expectedOutput = getExpectedOutput(
+            new boolean[]{true, true}, new String[]{"load", "box-blur"});
+
+    assertEquals(true, compareOutputs(actualOutput, expectedOutput));
+  }
+
+  @Test
+  public void testBoxBlur_fail_wrongRadius() {
+    TerminalViewTest.ReadableInputStream inputStream = new ReadableInputStreamQuitDefault(
+            "load res/SMPTE/SMPTE-original.ppm SMPTE\n"
+                    + " box-blur wide SMPTE SMPTE-blur");
+    TerminalViewTest.WritableOutputStream outputStream =
+            new TerminalViewTest.WritableOutputStream();
+    getController(inputStream, outputStream).beginApp();
+    String actualOutput = outputStream.getOutput();
+    String expectedOutput = getExpectedOutput(
+            new boolean[]{true, false}, new String[]{"load", "box-blur"});
+
+    assertEquals(true, compareOutputs(actualOutput, expectedOutput));
+  }
+
+  @Test
+  public void testGaussianBlur_success() {
+    TerminalViewTest.ReadableInputStream inputStream = new ReadableInputStreamQuitDefault(
+            "load res/SMPTE/SMPTE-original.ppm SMPTE\n"
+                    + " gaussian-blur 7.5 SMPTE SMPTE-blur");
+    TerminalViewTest.WritableOutputStream outputStream =
+            new TerminalViewTest.WritableOutputStream();
+    getController(inputStream, outputStream).beginApp();
+    String actualOutput = outputStream.getOutput();
+    String expectedOutput = getExpectedOutput(
+            new boolean[]{true, true}, new String[]{"load", "gaussian-blur"});
+
+    assertEquals(true, compareOutputs(actualOutput, expectedOutput));
+  }
+
+  @Test
+  public void testConvolve_success() {
+    TerminalViewTest.ReadableInputStream inputStream = new ReadableInputStreamQuitDefault(
+            "load res/SMPTE/SMPTE-original.ppm SMPTE\n"
+                    + " convolve --mirror res/kernels/emboss.txt SMPTE SMPTE-emboss");
+    TerminalViewTest.WritableOutputStream outputStream =
+            new TerminalViewTest.WritableOutputStream();
+    getController(inputStream, outputStream).beginApp();
+    String actualOutput = outputStream.getOutput();
+    String expectedOutput = getExpectedOutput(
+            new boolean[]{true, true}, new String[]{"load", "convolve"});
+
+    assertEquals(true, compareOutputs(actualOutput, expectedOutput));
+  }
+
+  @Test
+  public void testConvolve_fail_missingFile() {
+    TerminalViewTest.ReadableInputStream inputStream = new ReadableInputStreamQuitDefault(
+            "load res/SMPTE/SMPTE-original.ppm SMPTE\n"
+                    + " convolve res/kernels/missing.txt SMPTE SMPTE-emboss");
+    TerminalViewTest.WritableOutputStream outputStream =
+            new TerminalViewTest.WritableOutputStream();
+    getController(inputStream, outputStream).beginApp();
+    String actualOutput = outputStream.getOutput();
+    String expectedOutput = getExpectedOutput(
+            new boolean[]{true, false}, new String[]{"load", "convolve"});
+
+    assertEquals(true, compareOutputs(actualOutput, expectedOutput));
+  }
+
+  @Test
+  public void testLevels_success() {
+    TerminalViewTest.ReadableInputStream inputStream = new ReadableInputStreamQuitDefault(
+            "load res/SMPTE/SMPTE-original.ppm SMPTE\n levels 16 235 1.2 SMPTE SMPTE-levels");
+    TerminalViewTest.WritableOutputStream outputStream =
+            new TerminalViewTest.WritableOutputStream();
+    getController(inputStream, outputStream).beginApp();
+    String actualOutput = outputStream.getOutput();
+    String expectedOutput = getExpectedOutput(
+            new boolean[]{true, true}, new String[]{"load", "levels"});
+
+    assertEquals(true, compareOutputs(actualOutput, expectedOutput));
+  }
+
+  @Test
+  public void testLevels_fail_wrongRange() {
+    TerminalViewTest.ReadableInputStream inputStream = new ReadableInputStreamQuitDefault(
+            "load res/SMPTE/SMPTE-original.ppm SMPTE\n levels 235 16 1.2 SMPTE SMPTE-levels");
+    TerminalViewTest.WritableOutputStream outputStream =
+            new TerminalViewTest.WritableOutputStream();
+    getController(inputStream, outputStream).beginApp();
+    String actualOutput = outputStream.getOutput();
+    String expectedOutput = getExpectedOutput(
+            new boolean[]{true, false}, new String[]{"load", "levels"});
+
+    assertEquals(true, compareOutputs(actualOutput, expectedOutput));
+  }
+
+  @Test
+  public void testCurves_success() {
+    TerminalViewTest.ReadableInputStream inputStream = new ReadableInputStreamQuitDefault(
+            "load res/SMPTE/SMPTE-original.ppm SMPTE\n"
+                    + " curves res/curves/contrast.txt SMPTE SMPTE-curves");
+    TerminalViewTest.WritableOutputStream outputStream =
+            new TerminalViewTest.WritableOutputStream();
+    getController(inputStream, outputStream).beginApp();
+    String actualOutput = outputStream.getOutput();
+    String expectedOutput = getExpectedOutput(
+            new boolean[]{true, true}, new String[]{"load", "curves"});
+
+    assertEquals(true, compareOutputs(actualOutput, expectedOutput));
+  }
+
   @Test
   public void testBlur_fail_wrongArgs() {
     TerminalViewTest.ReadableInputStream inputStream = new ReadableInputStreamQuitDefault(
@@ -926,23 +1173,28 @@ public class ImageControllerTest {
     assertEquals("\u001B[H\u001B[2JAvailable commands:\n"
             + "\n"
             + "brighten value img-src img-dest\n"
-            + "sharpen img-src img-dest\n"
+            + "sharpen [--zero|--clamp|--mirror|--wrap] img-src img-dest\n"
+            + "gaussian-blur sigma img-src img-dest\n"
             + "dither img-src img-dest\n"
             + "Save file-path image-name\n"
-            + "blur img-src img-dest\n"
+            + "blur [--zero|--clamp|--mirror|--wrap] img-src img-dest\n"
             + "greyscale component img-src img-dest\n"
             + "greyscale img-src img-dest\n"
             + "horizontal-flip img-src img-dest\n"
-            + "rgb-split img-src img-red img-green img-blue\n"
+            + "convolve [--zero|--clamp|--mirror|--wrap] kernel-file img-src img-dest\n"
+            + "rgb-split img-src img-red img-green img-blue (_ skips a channel)\n"
+            + "curves curve-file img-src img-dest\n"
             + "sepia img-src img-dest\n"
             + "rgb-combine img-dest img-red img-green img-blue\n"
-            + "Load file-path image-name\n"
+            + "Load [--offheap|--mapped|--tiled] file-path image-name\n"
             + "vertical-flip img-src img-dest\n"
             + "mosaic num-seeds img-src img-dest\n"
+            + "box-blur radius img-src img-dest\n"
+            + "levels black white gamma img-src img-dest\n"
             + "\n"
             + "\n"
             + "To view the available commands again, type \"help\". To quit the program, "
-            + "type \"quit\".\n"
+            + "type \"quit\". To see the memory held by the loaded images, type \"memory\".\n"
             + "Enter a command: Success: load\n"
             + " Enter a command: Failure: Please enter positive number of seeds "
             + "Enter a command: ", actualOutput);
@@ -960,23 +1212,28 @@ public class ImageControllerTest {
     assertEquals("\u001B[H\u001B[2JAvailable commands:\n"
             + "\n"
             + "brighten value img-src img-dest\n"
-            + "sharpen img-src img-dest\n"
+            + "sharpen [--zero|--clamp|--mirror|--wrap] img-src img-dest\n"
+            + "gaussian-blur sigma img-src img-dest\n"
             + "dither img-src img-dest\n"
             + "Save file-path image-name\n"
-            + "blur img-src img-dest\n"
+            + "blur [--zero|--clamp|--mirror|--wrap] img-src img-dest\n"
             + "greyscale component img-src img-dest\n"
             + "greyscale img-src img-dest\n"
             + "horizontal-flip img-src img-dest\n"
-            + "rgb-split img-src img-red img-green img-blue\n"
+            + "convolve [--zero|--clamp|--mirror|--wrap] kernel-file img-src img-dest\n"
+            + "rgb-split img-src img-red img-green img-blue (_ skips a channel)\n"
+            + "curves curve-file img-src img-dest\n"
             + "sepia img-src img-dest\n"
             + "rgb-combine img-dest img-red img-green img-blue\n"
-            + "Load file-path image-name\n"
+            + "Load [--offheap|--mapped|--tiled] file-path image-name\n"
             + "vertical-flip img-src img-dest\n"
             + "mosaic num-seeds img-src img-dest\n"
+            + "box-blur radius img-src img-dest\n"
+            + "levels black white gamma img-src img-dest\n"
             + "\n"
             + "\n"
             + "To view the available commands again, type \"help\". To quit the program, "
-            + "type \"quit\".\n"
+            + "type \"quit\". To see the memory held by the loaded images, type \"memory\".\n"
             + "Enter a command: Success: load\n"
             + " Enter a command: Failure: For input string: \"gth\" "
             + "Enter a command: ", actualOutput);
@@ -994,23 +1251,28 @@ public class ImageControllerTest {
     assertEquals("\u001B[H\u001B[2JAvailable commands:\n"
             + "\n"
             + "brighten value img-src img-dest\n"
-            + "sharpen img-src img-dest\n"
+            + "sharpen [--zero|--clamp|--mirror|--wrap] img-src img-dest\n"
+            + "gaussian-blur sigma img-src img-dest\n"
             + "dither img-src img-dest\n"
             + "Save file-path image-name\n"
-            + "blur img-src img-dest\n"
+            + "blur [--zero|--clamp|--mirror|--wrap] img-src img-dest\n"
             + "greyscale component img-src img-dest\n"
             + "greyscale img-src img-dest\n"
             + "horizontal-flip img-src img-dest\n"
-            + "rgb-split img-src img-red img-green img-blue\n"
+            + "convolve [--zero|--clamp|--mirror|--wrap] kernel-file img-src img-dest\n"
+            + "rgb-split img-src img-red img-green img-blue (_ skips a channel)\n"
+            + "curves curve-file img-src img-dest\n"
             + "sepia img-src img-dest\n"
             + "rgb-combine img-dest img-red img-green img-blue\n"
-            + "Load file-path image-name\n"
+            + "Load [--offheap|--mapped|--tiled] file-path image-name\n"
             + "vertical-flip img-src img-dest\n"
             + "mosaic num-seeds img-src img-dest\n"
+            + "box-blur radius img-src img-dest\n"
+            + "levels black white gamma img-src img-dest\n"
             + "\n"
             + "\n"
             + "To view the available commands again, type \"help\". To quit the program, "
-            + "type \"quit\".\n"
+            + "type \"quit\". To see the memory held by the loaded images, type \"memory\".\n"
             + "Enter a command: Success: load\n"
             + " Success: load\n"
             + " Success: load\n"
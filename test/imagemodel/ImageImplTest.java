@@ -4,11 +4,14 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import helpers.ImageImplHelper;
 import helpers.ImageUtil;
@@ -16,9 +19,13 @@ import helpers.loaders.BMPLoader;
 import helpers.loaders.PNGLoader;
 import imagecontroller.commands.Blur;
 import imagecontroller.commands.Sharpen;
+import imagecontroller.savers.PPMSaver;
 
 import java.util.List;
+import java.util.Random;
+import java.util.stream.StreamSupport;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -602,6 +609,1052 @@ public class ImageImplTest {
     assertFalse(compareImages(imgMosaic, imgMosaic2));
   }
 
+  @Test
+  public void packedRasterImageTest() {
+    int[] pixels = {0x102030, 0xFFFFFF, 0x000000, 0xA0B0C0, 0x010203, 0x7F8081};
+    ImageInterface packed = new ImageImpl(new PackedRaster(3, 2, pixels), 255);
+
+    assertEquals(2, (int) packed.getSize().get(0));
+    assertEquals(3, (int) packed.getSize().get(1));
+    PixelInterface pixel = packed.getImageArray().get(1).get(0);
+    assertEquals(0xA0, pixel.getRed());
+    assertEquals(0xB0, pixel.getGreen());
+    assertEquals(0xC0, pixel.getBlue());
+    assertTrue(compareImages(packed, new ImageImpl(packed.getImageArray())));
+  }
+
+  @Test
+  public void rgbSplitCombineRoundTrip() {
+    List<ImageInterface> split = img.rgbSplit();
+    ImageInterface combined = new ImageImpl(split.get(0), split.get(1), split.get(2));
+    assertTrue(compareImages(combined, img));
+
+    // The planar result supports the regular operations
+    assertTrue(compareImages(combined.brighten(50), img.brighten(50)));
+    assertTrue(compareImages(combined.greyscale("green-component"), split.get(1)));
+  }
+
+  @Test
+  public void rgbSplitMatchesChannelsOnEveryStorage() {
+    String[] components = {"red-component", "green-component", "blue-component"};
+    for (StorageType storage : new StorageType[]{StorageType.HEAP, StorageType.OFF_HEAP,
+        StorageType.TILED}) {
+      ImageInterface image = imgHelper.loadImage("res/SMPTE/SMPTE-original.ppm", storage);
+      List<ImageInterface> split = image.rgbSplit();
+      assertEquals(3, split.size());
+      for (int band = 0; band < 3; band++) {
+        assertTrue(compareImages(img.greyscale(components[band]), split.get(band)));
+      }
+    }
+    // A split that is split again gives the same greyscale image three times
+    List<ImageInterface> again = img.rgbSplit().get(2).rgbSplit();
+    assertTrue(compareImages(again.get(0), again.get(2)));
+  }
+
+  @Test
+  public void planarGreyscaleWriteKeepsChannelsApart() {
+    byte[] grey = {10, 20, 30, 40};
+    PlanarRaster raster = new PlanarRaster(2, 2, grey);
+    raster.writeSamples(0, new int[]{1, 2, 3, 4, 5, 6});
+
+    assertEquals(1, raster.getSample(0, 0, 0));
+    assertEquals(2, raster.getSample(0, 0, 1));
+    assertEquals(6, raster.getSample(0, 1, 2));
+    assertEquals(30, raster.getSample(1, 0, 1));
+  }
+
+  @Test
+  public void flippedViewsCollapse() {
+    RasterInterface raster = new PackedRaster(2, 2, new int[]{1, 2, 3, 4});
+    RasterInterface both = FlippedRaster.flip(
+            FlippedRaster.flip(raster, true, false), false, true);
+    assertEquals(4, both.getSample(0, 0, 2));
+    assertEquals(1, both.getSample(1, 1, 2));
+    assertTrue(FlippedRaster.flip(both, true, true) == raster);
+  }
+
+  @Test
+  public void flippedViewMaterializesOnWrite() {
+    int[] pixels = {1, 2, 3, 4};
+    RasterInterface view = FlippedRaster.flip(new PackedRaster(2, 2, pixels), true, false);
+    view.writeRow(0, new int[]{7, 8});
+
+    int[] row = new int[2];
+    view.readRow(0, row);
+    assertEquals(7, row[0]);
+    view.readRow(1, row);
+    assertEquals(4, row[0]);
+    assertEquals(1, pixels[0]);
+  }
+
+  @Test
+  public void bulkReadMatchesPixels() {
+    int[] row = new int[img.getSize().get(1)];
+    img.readRow(3, row);
+    PixelInterface pixel = img.getImageArray().get(3).get(5);
+    assertEquals((pixel.getRed() << 16) | (pixel.getGreen() << 8) | pixel.getBlue(), row[5]);
+
+    int[] region = new int[4 * 2];
+    img.readRegion(2, 3, 4, 2, region);
+    assertEquals(row[5], region[3]);
+  }
+
+  @Test
+  public void writeRegionOnFlipLeavesSourceUntouched() {
+    ImageInterface flipped = img.flipHorizontal().flipHorizontal();
+    flipped.writeRegion(0, 0, 2, 1, new int[]{0x010203, 0x040506});
+
+    int[] row = new int[2];
+    flipped.readRegion(0, 0, 2, 1, row);
+    assertEquals(0x040506, row[1]);
+    assertTrue(compareImages(img, imgHelper.loadImagePPM("res/SMPTE/SMPTE-original.ppm")));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void readRegionOutsideImage() {
+    img.readRegion(0, 0, img.getSize().get(1) + 1, 1, new int[img.getSize().get(1) + 1]);
+  }
+
+  @Test
+  public void rowSpliteratorParallelStream() {
+    long expected = 0;
+    int[] row = new int[img.getSize().get(1)];
+    for (int i = 0; i < img.getSize().get(0); i++) {
+      img.readRow(i, row);
+      for (int rgb : row) {
+        expected += rgb & 0xFF;
+      }
+    }
+    long actual = StreamSupport.stream(img.rowSpliterator(), true)
+            .flatMapToInt(Arrays::stream)
+            .mapToLong(rgb -> rgb & 0xFF)
+            .sum();
+    assertEquals(expected, actual);
+    assertEquals((long) img.getSize().get(0),
+            StreamSupport.stream(img.rowSpliterator(), true).count());
+  }
+
+  @Test
+  public void offHeapLoadMatchesHeapLoad() {
+    ImageInterface heap = imgHelper.loadImage("res/SMPTE/SMPTE-original.ppm", StorageType.HEAP);
+    ImageInterface offHeap = imgHelper.loadImage("res/SMPTE/SMPTE-original.ppm",
+            StorageType.OFF_HEAP);
+    ImageInterface mapped = imgHelper.loadImage("res/SMPTE/snow-mosaic.png",
+            StorageType.MAPPED);
+    assertTrue(compareImages(heap, offHeap));
+    assertTrue(compareImages(imgHelper.loadImage("res/SMPTE/snow-mosaic.png"), mapped));
+    assertTrue(compareImages(heap.flipVertical().brighten(20),
+            offHeap.flipVertical().brighten(20)));
+    assertTrue(compareImages(heap.greyscale("red-component"),
+            offHeap.greyscale("red-component")));
+  }
+
+  @Test
+  public void offHeapRasterCopyIsIndependent() {
+    OffHeapRaster raster = new OffHeapRaster(3, 2);
+    assertFalse(raster.isMapped());
+    raster.writeRow(1, new int[]{0x010203, 0xFFFFFF, 0x800000});
+    RasterInterface copy = raster.copy();
+    raster.writeRow(1, new int[3]);
+    int[] row = new int[3];
+    copy.readRow(1, row);
+    assertEquals(0x010203, row[0]);
+    assertEquals(0xFFFFFF, row[1]);
+    assertEquals(128, copy.getSample(1, 2, 0));
+    assertEquals(0, raster.getSample(1, 1, 2));
+  }
+
+  @Test
+  public void tiledFilterMatchesHeapFilter() {
+    ImageInterface tiled = imgHelper.loadImage("res/SMPTE/SMPTE-original.ppm",
+            StorageType.TILED);
+    assertTrue(compareImages(img.blur(new Blur().blur), tiled.blur(new Blur().blur)));
+    assertTrue(compareImages(img.sharpen(new Sharpen().sharpen),
+            tiled.flipHorizontal().sharpen(new Sharpen().sharpen).flipHorizontal()));
+    assertTrue(compareImages(img.greyscale("luma-component"),
+            tiled.greyscale("luma-component")));
+  }
+
+  @Test
+  public void tiledResultOnlyComputesTilesThatAreRead() {
+    int size = 3 * TiledRaster.TILE_SIZE;
+    ImageImpl source = new ImageImpl(new TiledRaster(size, size), 255);
+    ImageImpl blurred = (ImageImpl) source.blur(new Blur().blur);
+    int[] crop = new int[100];
+    blurred.readRegion(TiledRaster.TILE_SIZE, 0, 10, 10, crop);
+
+    TiledRaster result = (TiledRaster) blurred.getRaster();
+    assertEquals(1, result.getCreatedTiles());
+    // Filtering a tile reaches one pixel into the source tiles around it
+    assertEquals(6, ((TiledRaster) source.getRaster()).getCreatedTiles());
+
+    // Writing to the source afterwards does not change the tiles still to be computed
+    int[] white = new int[size];
+    Arrays.fill(white, 0xFFFFFF);
+    source.writeRow(size - 1, white);
+    blurred.readRow(size - 1, white);
+    assertEquals(0, white[0]);
+  }
+
+  @Test
+  public void tiledGreyscaleOnlyComputesTilesThatAreRead() {
+    int size = 3 * TiledRaster.TILE_SIZE;
+    for (String component : new String[]{"value-component", "intensity-component",
+        "luma-component"}) {
+      ImageImpl source = new ImageImpl(new TiledRaster(size, size), 255);
+      ImageImpl grey = (ImageImpl) source.greyscale(component);
+      int[] crop = new int[100];
+      grey.readRegion(0, 0, 10, 10, crop);
+      assertEquals(1, ((TiledRaster) grey.getRaster()).getCreatedTiles());
+      assertEquals(1, ((TiledRaster) source.getRaster()).getCreatedTiles());
+    }
+  }
+
+  @Test
+  public void tiledSplitOnlyComputesTilesThatAreRead() {
+    int size = 3 * TiledRaster.TILE_SIZE;
+    ImageImpl source = new ImageImpl(new TiledRaster(size, size), 255);
+    int[] white = new int[size];
+    Arrays.fill(white, 0xFFFFFF);
+    source.writeRow(0, white);
+    ImageImpl blurred = (ImageImpl) source.blur(new Blur().blur);
+    List<ImageInterface> channels = blurred.rgbSplit();
+    int[] crop = new int[100];
+    channels.get(1).readRegion(0, 0, 10, 10, crop);
+    assertEquals(1, ((TiledRaster) ((ImageImpl) channels.get(1)).getRaster()).getCreatedTiles());
+    assertEquals(0, ((TiledRaster) ((ImageImpl) channels.get(0)).getRaster()).getCreatedTiles());
+    assertEquals(1, ((TiledRaster) blurred.getRaster()).getCreatedTiles());
+
+    // Writing to the blurred image afterwards does not change the channels
+    Arrays.fill(white, 0);
+    blurred.writeRow(0, white);
+    channels.get(0).readRegion(0, 0, 10, 10, crop);
+    assertTrue(crop[0] != 0);
+    assertFalse(compareImages(channels.get(2), blurred.greyscale("blue-component")));
+  }
+
+  @Test
+  public void partialReadsMatchFullRows() {
+    ImageInterface noise = createNoiseImage(37, 5);
+    ShortRaster deep = new ShortRaster(37, 5, 65535);
+    List<RasterInterface> rasters = Arrays.asList(new PlanarRaster(37, 5),
+            new OffHeapRaster(37, 5), deep);
+    int[] row = new int[3 * 37];
+    for (RasterInterface raster : rasters) {
+      for (int i = 0; i < 5; i++) {
+        noise.readSamples(i, row);
+        raster.writeSamples(i, row);
+      }
+      int[] part = new int[3 * 11];
+      raster.readSamples(3, row);
+      raster.readSamples(3, 20, 11, part);
+      assertArrayEquals(Arrays.copyOfRange(row, 60, 93), part);
+
+      // The padding of every edge mode is filled in from the partial reads
+      ImageInterface image = new ImageImpl(raster, raster == deep ? 65535 : 255);
+      for (EdgeMode edgeMode : EdgeMode.values()) {
+        assertMatchesDirectFilter(image, new Sharpen().sharpen.filter, edgeMode,
+                image.sharpen(new Sharpen().sharpen, edgeMode));
+      }
+    }
+  }
+
+  @Test
+  public void tiledResultReadByManyThreads() throws InterruptedException {
+    ImageInterface tiled = imgHelper.loadImage("res/SMPTE/SMPTE-original.ppm",
+            StorageType.TILED);
+    ImageInterface expected = img.blur(new Blur().blur);
+    ImageInterface blurred = tiled.blur(new Blur().blur);
+    int n = blurred.getHeight();
+    int m = blurred.getWidth();
+    int[][] rows = new int[n][m];
+    Thread[] readers = new Thread[4];
+    for (int t = 0; t < readers.length; t++) {
+      int first = t;
+      readers[t] = new Thread(() -> {
+        // Every thread reads every row, starting at a different one
+        for (int i = 0; i < n; i++) {
+          int row = (i + first * n / readers.length) % n;
+          int[] pixels = new int[m];
+          blurred.readRow(row, pixels);
+          if (first == 0) {
+            rows[row] = pixels;
+          }
+        }
+      });
+      readers[t].start();
+    }
+    for (Thread reader : readers) {
+      reader.join();
+    }
+    int[] pixels = new int[m];
+    for (int i = 0; i < n; i++) {
+      expected.readRow(i, pixels);
+      assertArrayEquals(pixels, rows[i]);
+    }
+  }
+
+  @Test
+  public void ppmIsParsedFromTheStream() throws IOException {
+    String ppm = "P3\n# comment\n\n2 1 # size\n255\n1 2 3\n\n4 5 6#end\n";
+    ImageInterface img = ImageUtil.readPPM(new ByteArrayInputStream(ppm.getBytes()),
+            StorageType.HEAP);
+    int[] samples = new int[6];
+    img.readSamples(0, samples);
+    assertArrayEquals(new int[]{1, 2, 3, 4, 5, 6}, samples);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void ppmFailMissingSamples() {
+    ImageUtil.readPPM("P3\n2 1\n255\n1 2 3 4".getBytes());
+  }
+
+  @Test
+  public void sixteenBitImageKeepsItsDepth() throws IOException {
+    String ppm = "P3\n2 1\n65535\n65535 1000 0  300 300 300\n";
+    ImageInterface deep = ImageUtil.readPPM(ppm.getBytes());
+    assertEquals(65535, deep.getMaxValue());
+    assertTrue(((ImageImpl) deep).getRaster() instanceof ShortRaster);
+
+    int[] samples = new int[6];
+    ImageInterface brighter = deep.brighten(500);
+    brighter.readSamples(0, samples);
+    assertArrayEquals(new int[]{65535, 1500, 500, 800, 800, 800}, samples);
+    assertEquals(65535, brighter.getMaxValue());
+
+    // Packed rows are scaled to 8 bits
+    int[] packed = new int[2];
+    deep.readRow(0, packed);
+    assertEquals(0xFF0400, packed[0]);
+
+    ImageInterface red = deep.greyscale("red-component");
+    red.readSamples(0, samples);
+    assertArrayEquals(new int[]{65535, 65535, 65535, 300, 300, 300}, samples);
+    deep.dither().readSamples(0, samples);
+    assertEquals(0, samples[3]);
+
+    File file = File.createTempFile("deep", ".ppm");
+    file.deleteOnExit();
+    new PPMSaver().save(brighter, file.getPath());
+    ImageInterface reloaded = ImageUtil.readPPM(file.getPath());
+    assertEquals(65535, reloaded.getMaxValue());
+    reloaded.readSamples(0, samples);
+    assertArrayEquals(new int[]{65535, 1500, 500, 800, 800, 800}, samples);
+    assertTrue(compareImages(deep, imgHelper.rgbCombine(deep.rgbSplit())));
+  }
+
+  @Test
+  public void copyIsCopyOnWrite() {
+    ImageImpl source = (ImageImpl) img;
+    ImageImpl copy = new ImageImpl(img);
+    assertTrue(copy.getRaster() == source.getRaster());
+    assertEquals(img.getWidth(), copy.getWidth());
+    assertEquals(img.getHeight(), copy.getHeight());
+
+    int[] black = new int[img.getWidth()];
+    copy.writeRow(0, black);
+    assertFalse(copy.getRaster() == source.getRaster());
+    assertFalse(compareImages(copy, img));
+    assertTrue(compareImages(img, imgHelper.loadImagePPM("res/SMPTE/SMPTE-original.ppm")));
+
+    ImageImpl second = new ImageImpl(copy);
+    copy.writeRow(1, black);
+    int[] row = new int[img.getWidth()];
+    int[] expected = new int[img.getWidth()];
+    second.readRow(1, row);
+    img.readRow(1, expected);
+    assertArrayEquals(expected, row);
+  }
+
+  @Test
+  public void estimatedBytesFollowsRepresentation() {
+    int pixels = img.getWidth() * img.getHeight();
+    assertEquals(4L * pixels, img.estimatedBytes());
+    assertEquals(pixels, img.greyscale("red-component").estimatedBytes());
+    assertEquals(0, img.flipHorizontal().estimatedBytes());
+
+    ImageStore store = new ImageStore();
+    store.getImages().put("original", img);
+    store.getImages().put("copy", new ImageImpl(img));
+    store.getImages().put("offheap",
+            imgHelper.loadImage("res/SMPTE/SMPTE-original.ppm", StorageType.OFF_HEAP));
+    String report = store.memoryReport();
+    assertTrue(report.contains("shared with copy"));
+    assertTrue(report.contains("off-heap, direct"));
+    assertEquals(String.format("3 images, %.1f KB on heap, %.1f KB off heap",
+            4.0 * pixels / 1024, 3.0 * pixels / 1024), store.memorySummary());
+  }
+
+  @Test
+  public void pipelineMatchesStepByStep() {
+    ColorTransform sepia = new ColorTransform(Arrays.asList(
+            Arrays.asList(0.393, 0.769, 0.189),
+            Arrays.asList(0.349, 0.686, 0.168),
+            Arrays.asList(0.272, 0.534, 0.131)));
+    ColorTransform luma = new ColorTransform(Arrays.asList(
+            Arrays.asList(0.2126, 0.7152, 0.0722),
+            Arrays.asList(0.2126, 0.7152, 0.0722),
+            Arrays.asList(0.2126, 0.7152, 0.0722)));
+
+    ImageInterface stepByStep = img.brighten(20).sepia(sepia).brighten(-70)
+            .greyscale(luma).greyscale("value-component");
+    ImageInterface fused = img.pipeline().brighten(20).sepia(sepia).brighten(-70)
+            .greyscale(luma).greyscale("value-component").apply();
+    assertTrue(compareImages(stepByStep, fused));
+
+    ImageInterface tiled = imgHelper.loadImage("res/SMPTE/SMPTE-original.ppm",
+            StorageType.TILED);
+    assertTrue(compareImages(img.brighten(-40).greyscale("red-component"),
+            tiled.pipeline().brighten(-40).greyscale("red-component").apply()));
+    assertTrue(compareImages(img, img.pipeline().apply()));
+  }
+
+  @Test
+  public void lookupTablesMapEverySample() {
+    ChannelLut levels = ChannelLut.levels(20, 220, 1.0, 255);
+    assertEquals(0, levels.lookup(0, 20));
+    assertEquals(128, levels.lookup(1, 120));
+    assertEquals(255, levels.lookup(2, 230));
+    ChannelLut gamma = ChannelLut.levels(0, 255, 2.0, 255);
+    assertEquals(Math.round(255 * Math.sqrt(64 / 255.0)), gamma.lookup(0, 64));
+    ChannelLut curve = ChannelLut.curve(Arrays.asList(0, 100, 200), Arrays.asList(255, 155, 0),
+            255);
+    assertEquals(205, curve.lookup(0, 50));
+    assertEquals(78, curve.lookup(0, 150));
+    assertEquals(0, curve.lookup(0, 250));
+
+    ImageInterface noise = createNoiseImage(40, 30);
+    ImageInterface mapped = noise.applyLut(levels.compose(curve));
+    int[] source = new int[3 * 40];
+    int[] row = new int[3 * 40];
+    for (int i = 0; i < 30; i++) {
+      noise.readSamples(i, source);
+      mapped.readSamples(i, row);
+      for (int k = 0; k < row.length; k++) {
+        assertEquals(curve.lookup(k % 3, levels.lookup(k % 3, source[k])), row[k]);
+      }
+    }
+    // Brighten and the luma component go through tables and keep their results
+    assertTrue(compareImages(noise.applyLut(ChannelLut.brighten(-30, 255)), noise.brighten(-30)));
+    assertTrue(compareImages(noise.pipeline().lut(ChannelLut.brighten(40, 255)).apply(),
+            noise.brighten(40)));
+    ImageInterface luma = noise.greyscale("luma-component");
+    for (int i = 0; i < 30; i++) {
+      noise.readSamples(i, source);
+      luma.readSamples(i, row);
+      for (int k = 0; k < row.length; k++) {
+        int pixel = k - k % 3;
+        assertEquals(Math.round(0.2126 * source[pixel] + 0.7152 * source[pixel + 1]
+                + 0.0722 * source[pixel + 2]), row[k]);
+      }
+    }
+  }
+
+  @Test
+  public void lookupTablesClampSamplesAboveTheMaximum() {
+    // The samples of a file may exceed the maximum value it declares
+    ImageInterface ppm = ImageUtil.readPPM("P3\n2 1\n100\n200 50 0  100 101 255\n".getBytes());
+    ImageInterface pixels = new ImageImpl(Arrays.asList(new RGBPixel(200, 50, 0),
+            new RGBPixel(100, 101, 255)), 2, 1, 100);
+    int[] samples = new int[6];
+    for (ImageInterface img : Arrays.asList(ppm, pixels)) {
+      img.brighten(-10).readSamples(0, samples);
+      assertArrayEquals(new int[]{90, 40, 0, 90, 90, 90}, samples);
+      img.applyLut(ChannelLut.levels(0, 50, 1, 100)).readSamples(0, samples);
+      assertArrayEquals(new int[]{100, 100, 0, 100, 100, 100}, samples);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void lookupTableFailOtherRange() {
+    createNoiseImage(4, 4).applyLut(ChannelLut.brighten(10, 1023));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void levelsFailBlackAboveWhite() {
+    ChannelLut.levels(200, 100, 1.0, 255);
+  }
+
+  @Test
+  public void colorTransformOfSamplesAboveTheMaximum() {
+    // A 16 bit raster under an 8 bit image holds samples the tables do not cover
+    ShortRaster raster = new ShortRaster(2, 1, 65535);
+    raster.writeSamples(0, new int[]{300, 40000, 10, 20, 30, 40});
+    ImageInterface img = new ImageImpl(raster, 255);
+    int[] samples = new int[6];
+    img.greyscale("luma-component").readSamples(0, samples);
+    assertArrayEquals(new int[]{255, 255, 255, 29, 29, 29}, samples);
+  }
+
+  @Test
+  public void pipelineFoldsColorTransforms() {
+    ColorTransform sepia = new ColorTransform(Arrays.asList(
+            Arrays.asList(0.393, 0.769, 0.189),
+            Arrays.asList(0.349, 0.686, 0.168),
+            Arrays.asList(0.272, 0.534, 0.131)));
+    ColorTransform luma = new ColorTransform(Arrays.asList(
+            Arrays.asList(0.2126, 0.7152, 0.0722),
+            Arrays.asList(0.2126, 0.7152, 0.0722),
+            Arrays.asList(0.2126, 0.7152, 0.0722)));
+    assertFalse(sepia.staysInRange(255));
+    assertTrue(luma.staysInRange(255));
+    ColorTransform composed = sepia.compose(luma);
+    assertEquals(0.2126 * 0.393 + 0.7152 * 0.349 + 0.0722 * 0.272,
+            composed.transform.get(1).get(0), 1e-12);
+
+    ImageInterface noise = createNoiseImage(64, 48);
+    // Sepia clamps, so strict folding keeps it apart from the transform after it
+    assertTrue(compareImages(noise.sepia(sepia).greyscale(luma), noise.pipeline()
+            .fold(PointPipeline.Folding.STRICT).sepia(sepia).greyscale(luma).apply()));
+    assertTrue(compareImages(noise.sepia(composed), noise.pipeline()
+            .fold(PointPipeline.Folding.ALWAYS).sepia(sepia).greyscale(luma).apply()));
+
+    // Luma never clamps, so strict folding only skips the rounding in between
+    ImageInterface stepByStep = noise.greyscale(luma).sepia(sepia).brighten(5);
+    ImageInterface folded = noise.pipeline().fold(PointPipeline.Folding.STRICT)
+            .greyscale(luma).sepia(sepia).brighten(5).apply();
+    assertTrue(compareImages(noise.greyscale(luma.compose(sepia)).brighten(5), folded));
+    int[] expected = new int[3 * 64];
+    int[] actual = new int[3 * 64];
+    for (int i = 0; i < 48; i++) {
+      stepByStep.readSamples(i, expected);
+      folded.readSamples(i, actual);
+      for (int k = 0; k < expected.length; k++) {
+        assertTrue(Math.abs(expected[k] - actual[k]) <= 1);
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void pipelineRejectsUnknownComponent() {
+    img.pipeline().brighten(10).greyscale("alpha-component");
+  }
+
+  @Test
+  public void parallelFilterMatchesSequential() {
+    ImageInterface noise = createNoiseImage(301, 517);
+    int threads = ParallelExecutor.getParallelism();
+    try {
+      ParallelExecutor.setParallelism(1);
+      ImageInterface sequentialBlur = noise.blur(new Blur().blur);
+      ImageInterface sequentialSharpen = noise.sharpen(new Sharpen().sharpen);
+      ParallelExecutor.setParallelism(4);
+      assertTrue(compareImages(sequentialBlur, noise.blur(new Blur().blur)));
+      assertTrue(compareImages(sequentialSharpen, noise.sharpen(new Sharpen().sharpen)));
+    } finally {
+      ParallelExecutor.setParallelism(threads);
+    }
+  }
+
+  @Test
+  public void parallelPointOperationsMatchSequential() {
+    ImageInterface noise = createNoiseImage(301, 517);
+    ColorTransform sepia = new ColorTransform(Arrays.asList(
+            Arrays.asList(0.393, 0.769, 0.189),
+            Arrays.asList(0.349, 0.686, 0.168),
+            Arrays.asList(0.272, 0.534, 0.131)));
+    int threads = ParallelExecutor.getParallelism();
+    try {
+      ParallelExecutor.setParallelism(1);
+      ImageInterface sequentialBrighten = noise.brighten(-25);
+      ImageInterface sequentialSepia = noise.sepia(sepia);
+      ImageInterface sequentialLuma = noise.greyscale("luma-component");
+      ParallelExecutor.setParallelism(4);
+      assertTrue(compareImages(sequentialBrighten, noise.brighten(-25)));
+      assertTrue(compareImages(sequentialSepia, noise.sepia(sepia)));
+      assertTrue(compareImages(sequentialLuma, noise.greyscale("luma-component")));
+    } finally {
+      ParallelExecutor.setParallelism(threads);
+    }
+  }
+
+  @Test
+  public void pipelineAppliesInPlace() {
+    ImageInterface noise = createNoiseImage(50, 70);
+    ImageInterface expected = noise.brighten(15).greyscale("intensity-component");
+    int threads = ParallelExecutor.getParallelism();
+    try {
+      ParallelExecutor.setParallelism(4);
+      ImageInterface result = noise.pipeline().brighten(15).greyscale("intensity-component")
+              .applyInPlace();
+      assertTrue(result == noise);
+      assertTrue(compareImages(expected, noise));
+
+      // A greyscale image whose channels share one plane gets planes of its own before the
+      // bands write to it
+      ImageInterface grey = createNoiseImage(50, 70).greyscale("value-component");
+      ImageInterface expectedGrey = grey.brighten(-40).greyscale("intensity-component");
+      grey.pipeline().brighten(-40).greyscale("intensity-component").applyInPlace();
+      assertTrue(compareImages(expectedGrey, grey));
+    } finally {
+      ParallelExecutor.setParallelism(threads);
+    }
+
+    // An image that shares its pixels with another one leaves the other one unchanged
+    ImageInterface original = createNoiseImage(50, 70);
+    ImageInterface flipped = original.flipHorizontal();
+    ImageInterface flippedBack = flipped.flipHorizontal();
+    flipped.pipeline().brighten(100).applyInPlace();
+    assertTrue(compareImages(original, createNoiseImage(50, 70)));
+    assertTrue(compareImages(original, flippedBack));
+    assertTrue(compareImages(createNoiseImage(50, 70).flipHorizontal().brighten(100), flipped));
+  }
+
+  @Test
+  public void separableKernelMatchesDirectFilter() {
+    assertTrue(new Blur().blur.isSeparable());
+    assertFalse(new Sharpen().sharpen.isSeparable());
+
+    // 7x7 binomial kernel, the outer product of (1 6 15 20 15 6 1) / 64 with itself
+    double[] binomial = {1, 6, 15, 20, 15, 6, 1};
+    List<List<Double>> weights = new ArrayList<>();
+    for (double a : binomial) {
+      List<Double> row = new ArrayList<>();
+      for (double b : binomial) {
+        row.add(a * b / 4096);
+      }
+      weights.add(row);
+    }
+    Kernel kernel = new Kernel(weights);
+    assertTrue(kernel.isSeparable());
+
+    ImageInterface noise = createNoiseImage(53, 41);
+    assertMatchesDirectFilter(noise, weights, noise.blur(kernel));
+  }
+
+  @Test
+  public void fixedPointFilterMatchesFloatingPoint() {
+    assertTrue(new Blur().blur.isFixedPoint());
+    assertTrue(new Sharpen().sharpen.isFixedPoint());
+
+    List<List<Double>> box = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      box.add(Arrays.asList(1.0 / 9, 1.0 / 9, 1.0 / 9));
+    }
+    Kernel boxKernel = new Kernel(box);
+    assertFalse(boxKernel.isFixedPoint());
+    assertTrue(boxKernel.isSeparable());
+
+    ImageInterface noise = createNoiseImage(47, 38);
+    assertMatchesDirectFilter(noise, new Sharpen().sharpen.filter,
+            noise.sharpen(new Sharpen().sharpen));
+    assertMatchesDirectFilter(noise, new Blur().blur.filter, noise.blur(new Blur().blur));
+    assertMatchesDirectFilter(noise, box, noise.blur(boxKernel));
+  }
+
+  @Test
+  public void edgeModeMapsOutsideIndices() {
+    assertEquals(-1, EdgeMode.ZERO.map(-1, 5));
+    assertEquals(0, EdgeMode.CLAMP.map(-3, 5));
+    assertEquals(4, EdgeMode.CLAMP.map(7, 5));
+    assertEquals(1, EdgeMode.MIRROR.map(-1, 5));
+    assertEquals(3, EdgeMode.MIRROR.map(5, 5));
+    assertEquals(2, EdgeMode.MIRROR.map(10, 5));
+    assertEquals(0, EdgeMode.MIRROR.map(-2, 1));
+    assertEquals(4, EdgeMode.WRAP.map(-1, 5));
+    assertEquals(1, EdgeMode.WRAP.map(11, 5));
+  }
+
+  @Test
+  public void colorTransformTablesMatchFloatingPoint() {
+    List<ColorTransform> transforms = Arrays.asList(
+            // Sepia and luma
+            new ColorTransform(Arrays.asList(Arrays.asList(0.393, 0.769, 0.189),
+                    Arrays.asList(0.349, 0.686, 0.168), Arrays.asList(0.272, 0.534, 0.131))),
+            new ColorTransform(Arrays.asList(Arrays.asList(0.2126, 0.7152, 0.0722),
+                    Arrays.asList(0.2126, 0.7152, 0.0722), Arrays.asList(0.2126, 0.7152, 0.0722))),
+            // Exact halves, negative and large coefficients
+            new ColorTransform(Arrays.asList(Arrays.asList(0.5, 0.25, -0.125),
+                    Arrays.asList(-1.5, 2.5, 0.0), Arrays.asList(1.1, -0.3, 7.9))));
+    // Every color, one row for each red value
+    int[] row = new int[3 * 256 * 256];
+    int[] expected = new int[row.length];
+    for (ColorTransform transform : transforms) {
+      for (int red = 0; red < 256; red++) {
+        for (int k = 0, gb = 0; gb < 256 * 256; k += 3, gb++) {
+          row[k] = red;
+          row[k + 1] = gb >> 8;
+          row[k + 2] = gb & 0xFF;
+        }
+        System.arraycopy(row, 0, expected, 0, row.length);
+        transform.applyExactly(expected, 255);
+        transform.apply(row, 255);
+        assertArrayEquals(expected, row);
+      }
+    }
+  }
+
+  @Test
+  public void rowWindowSlidesOverPaddedRows() {
+    RasterInterface source = new PackedRaster(7, 6);
+    int[] row = new int[3 * 7];
+    Random random = new Random(3);
+    for (int i = 0; i < 6; i++) {
+      for (int k = 0; k < row.length; k++) {
+        row[k] = random.nextInt(256);
+      }
+      source.writeSamples(i, row);
+    }
+    RowWindow window = new RowWindow(source, 2, 4, 2, EdgeMode.MIRROR);
+    int[] expected = new int[window.getRowLength()];
+    // Moving down one row, then jumping ahead and back, always gives the rows around the center
+    for (int y : new int[]{0, 1, 2, 3, 5, 1, 2, 7}) {
+      int[][] rows = window.moveTo(y);
+      assertEquals(5, rows.length);
+      for (int fi = 0; fi < 5; fi++) {
+        window.readRow(y - 2 + fi, expected);
+        assertArrayEquals(expected, rows[fi]);
+      }
+    }
+  }
+
+  @Test
+  public void edgeModesMatchDirectFilter() {
+    ImageInterface noise = createNoiseImage(29, 23);
+    Kernel blur = new Blur().blur;
+    Kernel sharpen = new Sharpen().sharpen;
+    for (EdgeMode edgeMode : EdgeMode.values()) {
+      assertMatchesDirectFilter(noise, blur.filter, edgeMode, noise.blur(blur, edgeMode));
+      assertMatchesDirectFilter(noise, sharpen.filter, edgeMode,
+              noise.sharpen(sharpen, edgeMode));
+    }
+    // A kernel wider than the image reaches past the opposite edge
+    ImageInterface narrow = createNoiseImage(2, 3);
+    assertMatchesDirectFilter(narrow, sharpen.filter, EdgeMode.WRAP,
+            narrow.sharpen(sharpen, EdgeMode.WRAP));
+    assertMatchesDirectFilter(narrow, sharpen.filter, EdgeMode.MIRROR,
+            narrow.sharpen(sharpen, EdgeMode.MIRROR));
+
+    // Tiled results fill in the edges of every tile the same way
+    ImageInterface wide = createNoiseImage(300, 20);
+    ImageImpl tiled = new ImageImpl(new TiledRaster(300, 20), 255);
+    int[] row = new int[3 * 300];
+    for (int i = 0; i < 20; i++) {
+      wide.readSamples(i, row);
+      tiled.getRaster().writeSamples(i, row);
+    }
+    assertTrue(compareImages(wide.blur(blur, EdgeMode.WRAP), tiled.blur(blur, EdgeMode.WRAP)));
+  }
+
+  @Test
+  public void rowRunLoopsMatchPerPixelLoops() {
+    ImageInterface noise = createNoiseImage(67, 45);
+    List<List<Double>> box = new ArrayList<>();
+    List<List<Double>> uneven = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      box.add(Arrays.asList(1.0 / 9, 1.0 / 9, 1.0 / 9));
+      uneven.add(Arrays.asList(0.1 * i, -0.3, 0.7 / (i + 1)));
+    }
+    List<Kernel> kernels = Arrays.asList(new Blur().blur, new Sharpen().sharpen, new Kernel(box),
+            new Kernel(uneven));
+    ColorTransform sepia = new ColorTransform(Arrays.asList(
+            Arrays.asList(0.393, 0.769, 0.189),
+            Arrays.asList(0.349, 0.686, 0.168),
+            Arrays.asList(0.272, 0.534, 0.131)));
+
+    PixelLoops.Backend backend = PixelLoops.getBackend();
+    try {
+      List<ImageInterface> results = new ArrayList<>();
+      for (PixelLoops.Backend loops : PixelLoops.Backend.values()) {
+        PixelLoops.setBackend(loops);
+        for (Kernel kernel : kernels) {
+          results.add(noise.blur(kernel, EdgeMode.MIRROR));
+        }
+        results.add(noise.brighten(70));
+        results.add(noise.brighten(-70));
+        results.add(noise.sepia(sepia));
+      }
+      int half = results.size() / 2;
+      for (int i = 0; i < half; i++) {
+        assertTrue(compareImages(results.get(i), results.get(half + i)));
+      }
+    } finally {
+      PixelLoops.setBackend(backend);
+    }
+  }
+
+  @Test
+  public void largeKernelMatchesDirectFilterOnDeepSamples() {
+    Random random = new Random(11);
+    ShortRaster raster = new ShortRaster(40, 30, 65535);
+    int[] samples = new int[3 * 40];
+    for (int i = 0; i < 30; i++) {
+      for (int k = 0; k < samples.length; k++) {
+        samples[k] = random.nextInt(65536);
+      }
+      raster.writeSamples(i, samples);
+    }
+    ImageInterface deep = new ImageImpl(raster, 65535);
+
+    // Weights of 2^-20 keep the transform exact for 16 bit samples
+    List<List<Double>> fine = new ArrayList<>();
+    for (int i = 0; i < 15; i++) {
+      List<Double> row = new ArrayList<>();
+      for (int j = 0; j < 15; j++) {
+        row.add(Math.scalb((double) random.nextInt(2001) - 500, -20));
+      }
+      fine.add(row);
+    }
+    Kernel fineKernel = new Kernel(fine);
+    assertTrue(fineKernel.getFftConvolver().isExact(65535));
+    assertMatchesDirectFilter(deep, fine, EdgeMode.ZERO, deep.blur(fineKernel));
+
+    // A large kernel scaled by 2^24 with a few heavy weights could lose the exact sums of 16 bit
+    // samples, so it is applied directly to them and through the transform to 8 bit samples
+    List<List<Double>> heavy = new ArrayList<>();
+    for (int i = 0; i < 63; i++) {
+      List<Double> row = new ArrayList<>();
+      for (int j = 0; j < 63; j++) {
+        row.add(Math.scalb(1.0, -24));
+      }
+      heavy.add(row);
+    }
+    heavy.get(0).set(0, Math.scalb(1.0, -5));
+    heavy.get(40).set(20, Math.scalb(1.0, -6));
+    Kernel heavyKernel = new Kernel(heavy);
+    assertTrue(heavyKernel.usesFourierTransform());
+    assertFalse(heavyKernel.getFftConvolver().isExact(65535));
+    assertTrue(heavyKernel.getFftConvolver().isExact(255));
+    assertMatchesDirectFilter(deep, heavy, EdgeMode.MIRROR, deep.blur(heavyKernel,
+            EdgeMode.MIRROR));
+  }
+
+  @Test
+  public void largeKernelMatchesDirectFilter() {
+    // A 15x15 kernel of binary fractions that is not separable goes through the Fourier
+    // transform and still matches the direct filter exactly
+    Random random = new Random(7);
+    List<List<Double>> exact = new ArrayList<>();
+    for (int i = 0; i < 15; i++) {
+      List<Double> row = new ArrayList<>();
+      for (int j = 0; j < 15; j++) {
+        row.add((random.nextInt(17) - 4) / 1024.0);
+      }
+      exact.add(row);
+    }
+    Kernel exactKernel = new Kernel(exact);
+    assertFalse(exactKernel.isSeparable());
+
+    ImageInterface noise = createNoiseImage(260, 130);
+    assertMatchesDirectFilter(noise, exact, EdgeMode.ZERO, noise.blur(exactKernel));
+    assertMatchesDirectFilter(noise, exact, EdgeMode.WRAP,
+            noise.blur(exactKernel, EdgeMode.WRAP));
+    // The prepared transform is kept by the kernel and gives the same result again
+    assertTrue(exactKernel.usesFourierTransform());
+    assertMatchesDirectFilter(noise, exact, EdgeMode.WRAP,
+            noise.convolve(exactKernel, EdgeMode.WRAP));
+
+    // Other weights may round the other way where a sum is within rounding error of a half
+    List<List<Double>> inexact = new ArrayList<>();
+    for (int i = 0; i < 17; i++) {
+      List<Double> row = new ArrayList<>();
+      for (int j = 0; j < 17; j++) {
+        row.add(random.nextDouble() / 150 - 0.002);
+      }
+      inexact.add(row);
+    }
+    Kernel inexactKernel = new Kernel(inexact);
+    assertMatchesDirectFilter(noise, inexact, EdgeMode.MIRROR,
+            noise.blur(inexactKernel, EdgeMode.MIRROR), 1);
+
+    ImageImpl tiled = new ImageImpl(new TiledRaster(260, 130), 255);
+    int[] row = new int[3 * 260];
+    for (int i = 0; i < 130; i++) {
+      noise.readSamples(i, row);
+      tiled.getRaster().writeSamples(i, row);
+    }
+    assertTrue(compareImages(noise.blur(exactKernel), tiled.blur(exactKernel)));
+  }
+
+  @Test
+  public void boxBlurMatchesLocalMean() {
+    ImageInterface noise = createNoiseImage(37, 29);
+    int[][] rows = new int[29][3 * 37];
+    for (int i = 0; i < 29; i++) {
+      noise.readSamples(i, rows[i]);
+    }
+    IntegralImage integral = new IntegralImage(noise);
+    assertEquals(rows[3][3 * 4 + 1] + rows[3][3 * 5 + 1], integral.sum(1, 4, 3, 6, 4));
+
+    int[] actual = new int[3 * 37];
+    for (int radius : new int[]{0, 1, 4, 100}) {
+      ImageInterface blurred = noise.boxBlur(radius);
+      for (int i = 0; i < 29; i++) {
+        blurred.readSamples(i, actual);
+        for (int k = 0; k < actual.length; k++) {
+          long sum = 0;
+          int count = 0;
+          for (int row = Math.max(0, i - radius); row <= Math.min(28, i + radius); row++) {
+            for (int col = Math.max(0, k / 3 - radius); col <= Math.min(36, k / 3 + radius);
+                 col++) {
+              sum += rows[row][3 * col + k % 3];
+              count++;
+            }
+          }
+          assertEquals(Math.round((double) sum / count), actual[k]);
+        }
+      }
+    }
+    assertTrue(compareImages(noise, noise.boxBlur(0)));
+  }
+
+  @Test
+  public void integralImageBandsMatchWholeTable() {
+    ImageInterface noise = createNoiseImage(41, 300);
+    IntegralImage whole = new IntegralImage(noise);
+    IntegralImage band = new IntegralImage(noise, 100, 140);
+    assertEquals(4L * 3 * 42 * 301, whole.estimatedBytes());
+    assertEquals(4L * 3 * 42 * 41, band.estimatedBytes());
+    assertEquals(whole.sum(2, 3, 100, 30, 140), band.sum(2, 3, 100, 30, 140));
+    assertEquals(whole.sum(0, 0, 120, 41, 140), band.sum(0, 0, 120, 41, 160));
+
+    int[] expected = new int[3 * 41];
+    int[] actual = new int[3 * 41];
+    whole.meanRow(120, 19, expected);
+    band.meanRow(120, 19, actual);
+    assertArrayEquals(expected, actual);
+
+    // Blurs taller than a band sum up several overlapping bands
+    for (int radius : new int[]{3, 200}) {
+      ImageInterface blurred = noise.boxBlur(radius);
+      for (int i = 0; i < 300; i++) {
+        whole.meanRow(i, radius, expected);
+        blurred.readSamples(i, actual);
+        assertArrayEquals(expected, actual);
+      }
+    }
+
+    // Sums that could overflow an int are kept in longs
+    ShortRaster deep = new ShortRaster(200, 200, 65535);
+    assertEquals(8L * 3 * 201 * 201,
+            new IntegralImage(new ImageImpl(deep, 65535)).estimatedBytes());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void integralImageBandRefusesWindowsPastItsRows() {
+    // Rather than miscounting the pixels of the window
+    new IntegralImage(createNoiseImage(41, 300), 100, 140).meanRow(120, 20, new int[3 * 41]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void boxBlurFailNegativeRadius() {
+    img.boxBlur(-1);
+  }
+
+  @Test
+  public void gaussianBlurIsCloseToGaussianKernel() {
+    // A flat image stays flat, borders included
+    ImageImpl flat = new ImageImpl(new PackedRaster(40, 30), 255);
+    assertTrue(compareImages(flat.brighten(77), flat.brighten(77).gaussianBlur(6)));
+
+    // Away from the borders the recursive filter follows a sampled Gaussian kernel closely
+    double sigma = 3.5;
+    int radius = 14;
+    double[] gaussian = new double[2 * radius + 1];
+    double total = 0;
+    for (int i = -radius; i <= radius; i++) {
+      gaussian[i + radius] = Math.exp(-i * i / (2 * sigma * sigma));
+      total += gaussian[i + radius];
+    }
+    List<List<Double>> weights = new ArrayList<>();
+    for (double a : gaussian) {
+      List<Double> row = new ArrayList<>();
+      for (double b : gaussian) {
+        row.add(a * b / (total * total));
+      }
+      weights.add(row);
+    }
+    ImageInterface recursive = img.gaussianBlur(sigma);
+    ImageInterface direct = img.blur(new Kernel(weights));
+    int width = img.getWidth();
+    int[] actual = new int[3 * width];
+    int[] expected = new int[3 * width];
+    for (int i = radius; i < img.getHeight() - radius; i++) {
+      recursive.readSamples(i, actual);
+      direct.readSamples(i, expected);
+      for (int k = 3 * radius; k < 3 * (width - radius); k++) {
+        assertEquals(expected[k], actual[k], 8);
+      }
+    }
+  }
+
+  @Test
+  public void parallelGaussianBlurMatchesSequential() {
+    ImageInterface noise = createNoiseImage(150, 170);
+    int threads = ParallelExecutor.getParallelism();
+    try {
+      ParallelExecutor.setParallelism(1);
+      ImageInterface sequential = noise.gaussianBlur(12.5);
+      ParallelExecutor.setParallelism(4);
+      assertTrue(compareImages(sequential, noise.gaussianBlur(12.5)));
+    } finally {
+      ParallelExecutor.setParallelism(threads);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void gaussianBlurFailSmallSigma() {
+    img.gaussianBlur(0.2);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void imageArrayViewIsReadOnly() {
+    img.getImageArray().get(0).set(0, new RGBPixel(0));
+  }
+
+  /**
+   * Helper method that filters an image pixel by pixel with the full kernel in floating point and
+   * checks that the result matches the given image.
+   */
+  private void assertMatchesDirectFilter(ImageInterface source, List<List<Double>> weights,
+                                         ImageInterface result) {
+    assertMatchesDirectFilter(source, weights, EdgeMode.ZERO, result);
+  }
+
+  /**
+   * Helper method that filters an image pixel by pixel with the full kernel in floating point,
+   * treating pixels outside of the image as the edge mode says, and checks that the result
+   * matches the given image.
+   */
+  private void assertMatchesDirectFilter(ImageInterface source, List<List<Double>> weights,
+                                         EdgeMode edgeMode, ImageInterface result) {
+    assertMatchesDirectFilter(source, weights, edgeMode, result, 0);
+  }
+
+  /**
+   * Helper method that filters an image pixel by pixel with the full kernel in floating point and
+   * checks that every sample of the given image is within the tolerance of the result.
+   */
+  private void assertMatchesDirectFilter(ImageInterface source, List<List<Double>> weights,
+                                         EdgeMode edgeMode, ImageInterface result,
+                                         int tolerance) {
+    int width = source.getWidth();
+    int height = source.getHeight();
+    int size = weights.size();
+    int[][] rows = new int[height][3 * width];
+    for (int i = 0; i < height; i++) {
+      source.readSamples(i, rows[i]);
+    }
+    int[] actual = new int[3 * width];
+    for (int i = 0; i < height; i++) {
+      result.readSamples(i, actual);
+      for (int k = 0; k < actual.length; k++) {
+        double sum = 0;
+        for (int fi = 0; fi < size; fi++) {
+          for (int fj = 0; fj < size; fj++) {
+            int row = edgeMode.map(i - size / 2 + fi, height);
+            int col = edgeMode.map(k / 3 - size / 2 + fj, width);
+            if (row >= 0 && col >= 0) {
+              sum += weights.get(fi).get(fj) * rows[row][3 * col + k % 3];
+            }
+          }
+        }
+        assertEquals(Math.max(0, Math.min(source.getMaxValue(), Math.round(sum))), actual[k],
+                tolerance);
+      }
+    }
+  }
+
   /**
    * Helper method for testing file operations.
    */
@@ -713,4 +1766,14 @@ public class ImageImplTest {
     }
     return new ImageImpl(solidArray, width, height, 255);
   }
-}
\ No newline at end of file
+
+  // Creates an image of random colors that is the same on every run
+  private ImageInterface createNoiseImage(int width, int height) {
+    Random random = new Random(42);
+    int[] pixels = new int[width * height];
+    for (int i = 0; i < pixels.length; i++) {
+      pixels[i] = random.nextInt(0x1000000);
+    }
+    return new ImageImpl(new PackedRaster(width, height, pixels), 255);
+  }
+}